@@ -0,0 +1,19 @@
+package hiperium.city.functions.common.cache;
+
+/**
+ * Loads the value associated with a key when it isn't present in a {@link ReadThroughCache}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the loaded values.
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * Loads the value associated with the given key.
+     *
+     * @param key The key whose value is requested.
+     * @return The loaded value, or {@code null} if there is no value for the key. Null values aren't cached.
+     */
+    V load(K key);
+}
@@ -0,0 +1,133 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.enums.RecordStatus;
+import hiperium.city.functions.common.exceptions.InactiveCityException;
+import hiperium.city.functions.common.exceptions.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * The CityStatusCache class caches the {@link RecordStatus} of cities by city ID, so city functions
+ * don't need a data store read on every request to reject inactive cities.
+ * <p>
+ * The cache is meant to be held in a static field or a singleton bean, so its content survives across warm
+ * invocations of the same container. It's built on a {@link ReadThroughCache}, so it provides:
+ * <ul>
+ *     <li>Time-to-live expiration and size-bounded, segmented LRU eviction.</li>
+ *     <li>Refresh-ahead: entries older than the refresh period are served while they're reloaded
+ *     in the background.</li>
+ *     <li>Request coalescing: concurrent misses for the same city trigger a single load.</li>
+ *     <li>Negative caching: cities that don't exist are remembered for a shorter period.</li>
+ * </ul>
+ */
+public final class CityStatusCache {
+
+    private static final String CACHE_NAME = "CityStatus";
+
+    private final CityStatusLoader loader;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final ReadThroughCache<String, Entry> cache;
+
+    /**
+     * Constructs a new CityStatusCache.
+     *
+     * @param loader       The loader used to read the city status from its data store.
+     * @param ttl          The time after which a cached status expires and must be loaded again.
+     * @param refreshAfter The time after which a cached status is reloaded in the background while it's still
+     *                     served. It should be shorter than the time to live.
+     * @param negativeTtl  The time a missing city is remembered before its status is loaded again.
+     * @param maximumSize  The maximum number of cities kept in the cache.
+     */
+    public CityStatusCache(CityStatusLoader loader,
+                           Duration ttl,
+                           Duration refreshAfter,
+                           Duration negativeTtl,
+                           int maximumSize) {
+        this(loader, ttl, refreshAfter, negativeTtl, maximumSize, System::nanoTime,
+            Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    CityStatusCache(CityStatusLoader loader,
+                    Duration ttl,
+                    Duration refreshAfter,
+                    Duration negativeTtl,
+                    int maximumSize,
+                    LongSupplier ticker,
+                    Executor refreshExecutor) {
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.cache = new ReadThroughCache<>(CACHE_NAME, cityId -> this.loadEntry(cityId, null), maximumSize,
+            entry -> entry.notFound() ? this.negativeTtlNanos : this.ttlNanos, refreshAfter, ticker, refreshExecutor);
+    }
+
+    /**
+     * Retrieves the status of the given city, loading it only when it isn't cached or has expired.
+     *
+     * @param cityId    The unique identifier of the city.
+     * @param requestId The request ID used to trace a failure.
+     * @return The status of the city.
+     * @throws ResourceNotFoundException If the city doesn't exist, including when that result is cached.
+     */
+    public RecordStatus getStatus(final String cityId, final String requestId) {
+        Entry entry = this.cache.get(cityId, key -> this.loadEntry(key, requestId));
+        if (entry.notFound()) {
+            throw new ResourceNotFoundException(entry.message(), requestId);
+        }
+        return entry.status();
+    }
+
+    /**
+     * Verifies that the given city exists and is active.
+     *
+     * @param cityId    The unique identifier of the city.
+     * @param requestId The request ID used to trace a failure.
+     * @throws ResourceNotFoundException If the city doesn't exist.
+     * @throws InactiveCityException     If the city isn't active.
+     */
+    public void verifyActive(final String cityId, final String requestId) {
+        if (this.getStatus(cityId, requestId) != RecordStatus.ACTIVE) {
+            throw new InactiveCityException("City is not active: " + cityId, requestId);
+        }
+    }
+
+    /**
+     * Removes the given city from the cache, so its status is loaded again on the next request.
+     *
+     * @param cityId The unique identifier of the city.
+     */
+    public void invalidate(final String cityId) {
+        this.cache.invalidate(cityId);
+    }
+
+    /**
+     * Retrieves the number of cities currently held in the cache.
+     *
+     * @return The number of cached entries, including the negative ones.
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    private Entry loadEntry(final String cityId, final String requestId) {
+        try {
+            RecordStatus status = Objects.requireNonNull(this.loader.load(cityId, requestId),
+                "The city status loader must not return null.");
+            return new Entry(status, null);
+        } catch (ResourceNotFoundException exception) {
+            return new Entry(null, exception.getMessage());
+        }
+    }
+
+    private record Entry(RecordStatus status, String message) {
+
+        boolean notFound() {
+            return Objects.isNull(this.status);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.enums.RecordStatus;
+import hiperium.city.functions.common.exceptions.ResourceNotFoundException;
+
+/**
+ * Loads the status of a city from its data store, typically with a DynamoDB read.
+ */
+@FunctionalInterface
+public interface CityStatusLoader {
+
+    /**
+     * Loads the current status of the given city.
+     *
+     * @param cityId    The unique identifier of the city.
+     * @param requestId The request ID that triggered the load, used to trace failures.
+     * @return The status of the city.
+     * @throws ResourceNotFoundException If the city doesn't exist.
+     */
+    RecordStatus load(String cityId, String requestId);
+}
@@ -0,0 +1,57 @@
+package hiperium.city.functions.common.cache;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The DynamoDbItemLoader class is a {@link CacheLoader} that reads items by their partition key
+ * with a single GetItem call, and maps them into the cached value type.
+ *
+ * @param <V> The type of the cached values.
+ */
+public final class DynamoDbItemLoader<V> implements CacheLoader<String, V> {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final String partitionKeyName;
+    private final Function<Map<String, AttributeValue>, V> itemMapper;
+
+    /**
+     * Constructs a new DynamoDbItemLoader.
+     *
+     * @param dynamoDbClient   The DynamoDB client used to read the items.
+     * @param tableName        The name of the table holding the items.
+     * @param partitionKeyName The name of the partition key attribute, whose value is the cache key.
+     * @param itemMapper       The function that maps a DynamoDB item into the cached value.
+     */
+    public DynamoDbItemLoader(DynamoDbClient dynamoDbClient,
+                              String tableName,
+                              String partitionKeyName,
+                              Function<Map<String, AttributeValue>, V> itemMapper) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.partitionKeyName = partitionKeyName;
+        this.itemMapper = itemMapper;
+    }
+
+    /**
+     * Reads the item whose partition key has the given value.
+     *
+     * @param key The partition key value of the item.
+     * @return The mapped item, or {@code null} if the table doesn't contain the item.
+     */
+    @Override
+    public V load(final String key) {
+        GetItemRequest request = GetItemRequest.builder()
+            .tableName(this.tableName)
+            .key(Map.of(this.partitionKeyName, AttributeValue.fromS(key)))
+            .build();
+        GetItemResponse response = this.dynamoDbClient.getItem(request);
+        return response.hasItem() && !response.item().isEmpty() ? this.itemMapper.apply(response.item()) : null;
+    }
+}
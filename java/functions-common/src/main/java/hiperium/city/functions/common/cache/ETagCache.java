@@ -0,0 +1,98 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.springframework.messaging.Message;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The ETagCache class keeps the serialized response and the entity tag of read-mostly city data, by city ID
+ * and data version, so clients polling unchanged data are answered without serializing it again:
+ * <pre>{@code
+ * private static final ETagCache CITY_DATA_ETAGS = new ETagCache(1_000);
+ *
+ * City city = this.cityRepository.findById(cityIdRequest.cityId());
+ * return CITY_DATA_ETAGS.respond(city.id(), city.updatedAt(), functionRequest, () -> city);
+ * }</pre>
+ * The version is any value that changes when the data changes, such as an update timestamp or a version
+ * attribute. When the cached version matches, the body supplier isn't called. The cache is bounded, evicting
+ * the least recently used city, and it's meant to be held in a static field or a singleton bean.
+ */
+public final class ETagCache {
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Constructs a new ETagCache.
+     *
+     * @param maximumSize The maximum number of cities kept in the cache.
+     */
+    public ETagCache(int maximumSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return this.size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Answers a request for the data of a city: with {@code 304 Not Modified} if the client holds the current
+     * version, with the cached response if the version didn't change, or by serializing the body otherwise.
+     *
+     * @param cityId          The unique identifier of the city.
+     * @param version         The current version of the city data.
+     * @param functionRequest The request, whose {@code If-None-Match} header is compared with the entity tag.
+     * @param body            Supplies the body of the response, only called when the version isn't cached.
+     * @return A success response with an {@code ETag} header, or a {@code 304 Not Modified} response.
+     */
+    public Message<String> respond(final String cityId,
+                                   final Object version,
+                                   final FunctionRequest functionRequest,
+                                   final Supplier<?> body) {
+        Entry entry;
+        synchronized (this.entries) {
+            entry = this.entries.get(cityId);
+        }
+        if (Objects.isNull(entry) || !Objects.equals(entry.version(), version)) {
+            String payload = ResponseUtil.success(body.get()).getPayload();
+            entry = new Entry(version, ResponseUtil.etag(payload), payload);
+            synchronized (this.entries) {
+                this.entries.put(cityId, entry);
+            }
+        }
+        if (functionRequest.matchesETag(entry.etag())) {
+            return ResponseUtil.notModified(entry.etag());
+        }
+        return ResponseUtil.successWithETag(entry.payload(), entry.etag());
+    }
+
+    /**
+     * Removes the given city from the cache, e.g., when its data is updated by the same container.
+     *
+     * @param cityId The unique identifier of the city.
+     */
+    public void invalidate(final String cityId) {
+        synchronized (this.entries) {
+            this.entries.remove(cityId);
+        }
+    }
+
+    /**
+     * Retrieves the number of cities currently held in the cache.
+     *
+     * @return The number of cached entries.
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    private record Entry(Object version, String etag, String payload) {
+    }
+}
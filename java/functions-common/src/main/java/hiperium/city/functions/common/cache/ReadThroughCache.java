@@ -0,0 +1,321 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricCounter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * The ReadThroughCache class is a bounded, in-process cache that loads missing values through a
+ * {@link CacheLoader}, typically backed by a DynamoDB read (see {@link DynamoDbItemLoader}).
+ * <p>
+ * Eviction follows a segmented LRU policy: new entries enter a probation segment and are promoted to a
+ * protected segment when they're read again, so a burst of one-time keys can't flush the frequently used
+ * ones. Reads never block: the recency bookkeeping is skipped when another thread holds the policy lock.
+ * <p>
+ * Concurrent misses for the same key are coalesced into a single load, and entries older than the refresh
+ * period are served while they're reloaded in the background. Hits, misses and evictions are counted per
+ * cache instance for its whole lifetime, and also added to the shared {@link FunctionsMetrics} writer, which
+ * publishes the amounts recorded since its last flush. Each cache name takes three of the
+ * {@value hiperium.city.functions.common.loggers.EmfMetricsWriter#MAX_METRICS} metrics of the writer.
+ * The cache is meant to be held in a static field or a singleton bean, so its content survives across warm
+ * invocations of the same container.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ */
+public final class ReadThroughCache<K, V> {
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(ReadThroughCache.class);
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    private final CacheLoader<K, V> loader;
+    private final int maximumSize;
+    private final int protectedMaximumSize;
+    private final ToLongFunction<? super V> ttlNanos;
+    private final long refreshAfterNanos;
+    private final LongSupplier ticker;
+    private final Executor refreshExecutor;
+
+    private final Map<K, Node<V>> data = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<K, Boolean> probationSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Boolean> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final MetricCounter hitsMetric;
+    private final MetricCounter missesMetric;
+    private final MetricCounter evictionsMetric;
+
+    /**
+     * Constructs a new ReadThroughCache.
+     *
+     * @param name         The cache name, used as prefix of its metric names.
+     * @param loader       The loader used when a key isn't cached.
+     * @param maximumSize  The maximum number of entries kept in the cache.
+     * @param ttl          The time after which a cached value expires and must be loaded again.
+     * @param refreshAfter The time after which a cached value is reloaded in the background while it's still
+     *                     served. Use a duration equal to or longer than the time to live to disable it.
+     */
+    public ReadThroughCache(String name,
+                            CacheLoader<K, V> loader,
+                            int maximumSize,
+                            Duration ttl,
+                            Duration refreshAfter) {
+        this(name, loader, maximumSize, value -> ttl.toNanos(), refreshAfter, System::nanoTime,
+            Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    ReadThroughCache(String name,
+                     CacheLoader<K, V> loader,
+                     int maximumSize,
+                     ToLongFunction<? super V> ttlNanos,
+                     Duration refreshAfter,
+                     LongSupplier ticker,
+                     Executor refreshExecutor) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be positive.");
+        }
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.protectedMaximumSize = Math.max(1, maximumSize * PROTECTED_PERCENTAGE / 100);
+        this.ttlNanos = ttlNanos;
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.ticker = ticker;
+        this.refreshExecutor = refreshExecutor;
+        this.hitsMetric = FunctionsMetrics.writer().counter(name + "CacheHits");
+        this.missesMetric = FunctionsMetrics.writer().counter(name + "CacheMisses");
+        this.evictionsMetric = FunctionsMetrics.writer().counter(name + "CacheEvictions");
+    }
+
+    /**
+     * Retrieves the value associated with the given key, loading it with the cache loader when it isn't
+     * cached or has expired.
+     *
+     * @param key The key whose value is requested.
+     * @return The cached or loaded value, or {@code null} if the loader found no value.
+     */
+    public V get(final K key) {
+        return this.get(key, this.loader);
+    }
+
+    /**
+     * Retrieves the value associated with the given key, loading it with the given loader when it isn't
+     * cached or has expired. It allows loading with per-request data, such as the request ID.
+     *
+     * @param key    The key whose value is requested.
+     * @param loader The loader used if the key must be loaded or refreshed by this call.
+     * @return The cached or loaded value, or {@code null} if the loader found no value.
+     */
+    public V get(final K key, final CacheLoader<K, V> loader) {
+        long now = this.ticker.getAsLong();
+        Node<V> node = this.data.get(key);
+        if (Objects.isNull(node) || now >= node.expiresAt()) {
+            this.misses.increment();
+            this.missesMetric.increment();
+            return this.load(key, loader);
+        }
+        this.hits.increment();
+        this.hitsMetric.increment();
+        this.recordAccess(key);
+        if (now - node.loadedAt() >= this.refreshAfterNanos) {
+            this.refreshAsync(key, loader);
+        }
+        return node.value();
+    }
+
+    /**
+     * Removes the given key from the cache.
+     *
+     * @param key The key to remove.
+     */
+    public void invalidate(final K key) {
+        this.policyLock.lock();
+        try {
+            this.data.remove(key);
+            this.probationSegment.remove(key);
+            this.protectedSegment.remove(key);
+        } finally {
+            this.policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache, e.g., after restoring a snapshot taken long ago.
+     */
+    public void invalidateAll() {
+        this.policyLock.lock();
+        try {
+            this.data.clear();
+            this.probationSegment.clear();
+            this.protectedSegment.clear();
+        } finally {
+            this.policyLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of entries currently held in the cache.
+     *
+     * @return The number of cached entries.
+     */
+    public int size() {
+        return this.data.size();
+    }
+
+    /**
+     * Retrieves the number of requests served from the cache since it was created.
+     * It isn't reset when the metrics are published.
+     *
+     * @return The number of cache hits.
+     */
+    public long hitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Retrieves the number of requests that required a load since the cache was created.
+     * It isn't reset when the metrics are published.
+     *
+     * @return The number of cache misses.
+     */
+    public long missCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Retrieves the number of entries evicted by the size bound since the cache was created.
+     * It isn't reset when the metrics are published.
+     *
+     * @return The number of evictions.
+     */
+    public long evictionCount() {
+        return this.evictions.sum();
+    }
+
+    private V load(final K key, final CacheLoader<K, V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = this.loading.putIfAbsent(key, future);
+        if (Objects.nonNull(inFlight)) {
+            return this.await(inFlight);
+        }
+        try {
+            V value = this.loadAndStore(key, loader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error exception) {
+            future.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            this.loading.remove(key, future);
+        }
+    }
+
+    private void refreshAsync(final K key, final CacheLoader<K, V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (Objects.nonNull(this.loading.putIfAbsent(key, future))) {
+            return;     // A load or refresh for this key is already in flight.
+        }
+        this.refreshExecutor.execute(() -> {
+            try {
+                future.complete(this.loadAndStore(key, loader));
+            } catch (RuntimeException exception) {
+                LOGGER.warn("Couldn't refresh the cached value of key {}: {}", key, exception.getMessage());
+                future.completeExceptionally(exception);
+            } catch (Error error) {
+                future.completeExceptionally(error);
+                throw error;
+            } finally {
+                this.loading.remove(key, future);
+            }
+        });
+    }
+
+    private V loadAndStore(final K key, final CacheLoader<K, V> loader) {
+        V value = loader.load(key);
+        if (Objects.isNull(value)) {
+            this.invalidate(key);
+            return null;
+        }
+        long now = this.ticker.getAsLong();
+        this.data.put(key, new Node<>(value, now, now + this.ttlNanos.applyAsLong(value)));
+        this.policyLock.lock();
+        try {
+            if (!this.protectedSegment.containsKey(key)) {
+                this.probationSegment.put(key, Boolean.TRUE);
+            }
+            this.evictIfNeeded();
+        } finally {
+            this.policyLock.unlock();
+        }
+        return value;
+    }
+
+    private void recordAccess(final K key) {
+        if (!this.policyLock.tryLock()) {
+            return;     // Recency is best effort, a read never waits for the policy lock.
+        }
+        try {
+            if (Objects.nonNull(this.probationSegment.remove(key))) {
+                this.protectedSegment.put(key, Boolean.TRUE);
+                if (this.protectedSegment.size() > this.protectedMaximumSize) {
+                    Iterator<K> eldest = this.protectedSegment.keySet().iterator();
+                    K demoted = eldest.next();
+                    eldest.remove();
+                    this.probationSegment.put(demoted, Boolean.TRUE);
+                }
+            } else {
+                this.protectedSegment.get(key);
+            }
+        } finally {
+            this.policyLock.unlock();
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (this.probationSegment.size() + this.protectedSegment.size() > this.maximumSize) {
+            LinkedHashMap<K, Boolean> segment = this.probationSegment.isEmpty()
+                ? this.protectedSegment : this.probationSegment;
+            Iterator<K> eldest = segment.keySet().iterator();
+            K victim = eldest.next();
+            eldest.remove();
+            this.data.remove(victim);
+            this.evictions.increment();
+            this.evictionsMetric.increment();
+        }
+    }
+
+    private V await(final CompletableFuture<V> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    private record Node<V>(V value, long loadedAt, long expiresAt) {
+    }
+}
@@ -0,0 +1,215 @@
+package hiperium.city.functions.common.concurrency;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.tracing.InvocationTrace;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.slf4j.MDC;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * The InvocationDeadline class holds the point in time by which an invocation must have produced its response.
+ * It's created from the Lambda {@link Context} at the start of the invocation, keeping a safety margin before
+ * the platform timeout, and bound to the current thread, so helpers such as the batch loaders, the event
+ * publisher or the {@link TaskScope} can consult it through {@link #current()} and fail fast:
+ * <pre>{@code
+ * InvocationDeadline deadline = InvocationDeadline.start(context, requestId);
+ * try {
+ *     return deadline.respond(() -> this.handle(functionRequest));
+ * } finally {
+ *     InvocationDeadline.clear();
+ * }
+ * }</pre>
+ * When no deadline was started in the current thread, {@link #current()} returns an unbounded deadline.
+ */
+public final class InvocationDeadline {
+
+    /**
+     * Time reserved before the Lambda timeout to build and return an error response.
+     */
+    public static final Duration DEFAULT_SAFETY_MARGIN = Duration.ofMillis(500L);
+
+    private static final InvocationDeadline UNBOUNDED = new InvocationDeadline(Long.MAX_VALUE, null);
+    private static final ThreadLocal<InvocationDeadline> CURRENT = new ThreadLocal<>();
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final long deadlineNanos;
+    private final String requestId;
+
+    private InvocationDeadline(long deadlineNanos, String requestId) {
+        this.deadlineNanos = deadlineNanos;
+        this.requestId = requestId;
+    }
+
+    /**
+     * Creates the deadline of the invocation from its remaining time, minus {@link #DEFAULT_SAFETY_MARGIN},
+     * and binds it to the current thread.
+     *
+     * @param context   The Lambda context of the invocation.
+     * @param requestId The request ID propagated in the exceptions raised when the deadline is exceeded.
+     * @return The deadline of the invocation.
+     */
+    public static InvocationDeadline start(final Context context, final String requestId) {
+        InvocationDeadline deadline = fromContext(context, requestId);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Creates a deadline after the given time budget and binds it to the current thread. It's meant for local
+     * runs and tests, where no Lambda context is available.
+     *
+     * @param budget    The time the invocation has to produce its response.
+     * @param requestId The request ID propagated in the exceptions raised when the deadline is exceeded.
+     * @return The deadline of the invocation.
+     */
+    public static InvocationDeadline start(final Duration budget, final String requestId) {
+        InvocationDeadline deadline = after(budget, requestId);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Retrieves the deadline bound to the current thread.
+     *
+     * @return The deadline of the current invocation, or an unbounded deadline if none was started.
+     */
+    public static InvocationDeadline current() {
+        InvocationDeadline deadline = CURRENT.get();
+        return Objects.isNull(deadline) ? UNBOUNDED : deadline;
+    }
+
+    /**
+     * Removes the deadline bound to the current thread, at the end of the invocation.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Retrieves the time left before the deadline.
+     *
+     * @return The remaining time in nanoseconds, zero once the deadline has passed,
+     *         or {@link Long#MAX_VALUE} for an unbounded deadline.
+     */
+    public long remainingNanos() {
+        if (this == UNBOUNDED) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0L, this.deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * Verifies whether the deadline has passed.
+     *
+     * @return {@code true} if no time is left.
+     */
+    public boolean isExpired() {
+        return this.remainingNanos() == 0L;
+    }
+
+    /**
+     * Verifies that there is time left before the deadline, so a helper doesn't start work it can't finish.
+     *
+     * @param operation The name of the operation about to start, used in the exception message.
+     * @throws DeadlineExceededException If the deadline has passed.
+     */
+    public void ensureRemaining(final String operation) {
+        if (this.isExpired()) {
+            throw this.exceeded(operation);
+        }
+    }
+
+    /**
+     * Creates the exception raised when the given operation can't complete before the deadline.
+     *
+     * @param operation The name of the operation that ran out of time.
+     * @return A new {@link DeadlineExceededException} with the request ID of the invocation.
+     */
+    public DeadlineExceededException exceeded(final String operation) {
+        return new DeadlineExceededException(operation + " didn't complete before the invocation deadline.",
+            this.requestId);
+    }
+
+    /**
+     * Retrieves the request ID of the invocation.
+     *
+     * @return The request ID, or {@code null} for an unbounded deadline.
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Runs the given handler on a virtual thread and waits for its response until the deadline. When the deadline
+     * is reached first, the handler is interrupted and an error response with {@link ErrorCode#INTERNAL_004} is
+     * returned, so the client gets a well-formed answer instead of a platform timeout. The handler runs with this
+     * deadline, the logging MDC and the {@link InvocationTrace} of the calling thread.
+     *
+     * @param handler The handler producing the response of the invocation.
+     * @return The response of the handler, or an error response if it failed or ran out of time.
+     */
+    public Message<String> respond(final Supplier<Message<String>> handler) {
+        Map<String, String> contextMap = MDC.getCopyOfContextMap();
+        InvocationTrace trace = InvocationTrace.current();
+        Future<Message<String>> response = EXECUTOR.submit(() -> {
+            bind(this);
+            InvocationTrace.bind(trace);
+            if (Objects.nonNull(contextMap)) {
+                MDC.setContextMap(contextMap);
+            }
+            try {
+                return handler.get();
+            } finally {
+                CURRENT.remove();
+                InvocationTrace.unbind();
+                MDC.clear();
+            }
+        });
+        try {
+            return response.get(this.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exception) {
+            response.cancel(true);
+            return ResponseUtil.error(this.exceeded("The function handler"));
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof CityException cityException) {
+                return ResponseUtil.error(cityException);
+            }
+            return ResponseUtil.error(new CityException("Unexpected error: " + exception.getCause().getMessage(),
+                ErrorCode.INTERNAL_001, this.requestId, exception.getCause()));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            response.cancel(true);
+            return ResponseUtil.error(this.exceeded("The function handler"));
+        }
+    }
+
+    static InvocationDeadline after(final Duration budget, final String requestId) {
+        return new InvocationDeadline(System.nanoTime() + Math.max(0L, budget.toNanos()), requestId);
+    }
+
+    static InvocationDeadline fromContext(final Context context, final String requestId) {
+        return after(Duration.ofMillis(context.getRemainingTimeInMillis()).minus(DEFAULT_SAFETY_MARGIN), requestId);
+    }
+
+    static void bind(final InvocationDeadline deadline) {
+        if (deadline == UNBOUNDED) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package hiperium.city.functions.common.concurrency;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.exceptions.IdempotencyKeyReusedException;
+import hiperium.city.functions.common.exceptions.InactiveCityException;
+import hiperium.city.functions.common.exceptions.ResourceNotFoundException;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricCounter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The SingleFlight class lets concurrent calls with the same key share a single in-flight computation.
+ * It's meant for containers serving concurrent invocations, where many identical requests arrive at the
+ * same moment, keyed on the validated request and sharing the serialized response:
+ * <pre>{@code
+ * private static final SingleFlight<CityIdRequest, Message<String>> CITY_DATA =
+ *     new SingleFlight<>("CityData", Duration.ofSeconds(2));
+ *
+ * Message<String> response = CITY_DATA.execute(cityIdRequest,
+ *     () -> ResponseUtil.success(this.cityService.findById(cityIdRequest.cityId())));
+ * }</pre>
+ * The first caller computes the value, and the callers arriving while it's in flight wait for its result,
+ * or its exception, rethrown with the request ID of the waiting caller. A waiting caller never waits longer than the configured maximum nor past its
+ * {@link InvocationDeadline}: it then runs the computation on its own. Nothing is cached once the computation
+ * completes. Coalesced calls and wait timeouts are counted in the shared {@link FunctionsMetrics} writer.
+ *
+ * @param <K> The type of the keys, which must implement {@code equals} and {@code hashCode}, as records do.
+ * @param <V> The type of the computed values.
+ */
+public final class SingleFlight<K, V> {
+
+    private final long maxWaitNanos;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final MetricCounter coalescedMetric;
+    private final MetricCounter timeouts;
+
+    /**
+     * Constructs a new SingleFlight.
+     *
+     * @param name    The name of the single-flight group, used as prefix of its metric names.
+     * @param maxWait The maximum time a caller waits for the in-flight computation before running its own.
+     */
+    public SingleFlight(String name, Duration maxWait) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.coalescedMetric = FunctionsMetrics.writer().counter(name + "Coalesced");
+        this.timeouts = FunctionsMetrics.writer().counter(name + "CoalescedTimeouts");
+    }
+
+    /**
+     * Runs the given computation, unless a computation for the same key is already in flight,
+     * in which case its result is shared.
+     *
+     * @param key         The key identifying identical calls.
+     * @param computation The computation producing the value.
+     * @return The computed or shared value.
+     */
+    public V execute(final K key, final Supplier<? extends V> computation) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, future);
+        if (Objects.nonNull(existing)) {
+            this.coalesced.increment();
+            this.coalescedMetric.increment();
+            return this.await(existing, computation);
+        }
+        try {
+            V value = computation.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error exception) {
+            future.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            this.inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Retrieves the number of calls that shared another call's computation since this instance was created.
+     * It isn't reset when the metrics are published.
+     *
+     * @return The number of coalesced calls.
+     */
+    public long coalescedCount() {
+        return this.coalesced.sum();
+    }
+
+    private V await(final CompletableFuture<V> existing, final Supplier<? extends V> computation) {
+        long waitNanos = Math.min(this.maxWaitNanos, InvocationDeadline.current().remainingNanos());
+        try {
+            return existing.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exception) {
+            this.timeouts.increment();
+            return computation.get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof CityException cause) {
+                throw withRequestId(cause, InvocationDeadline.current().getRequestId());
+            }
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CityException("The shared computation failed: " + exception.getCause().getMessage(),
+                ErrorCode.INTERNAL_003, exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CityException("Interrupted while waiting for the shared computation.",
+                ErrorCode.INTERNAL_003, exception);
+        }
+    }
+
+    private static CityException withRequestId(final CityException exception, final String requestId) {
+        if (Objects.equals(exception.getRequestId(), requestId)) {
+            return exception;
+        }
+        String message = exception.getMessage();
+        CityException copy = switch (exception) {
+            case DeadlineExceededException ignored -> new DeadlineExceededException(message, requestId);
+            case IdempotencyKeyReusedException ignored -> new IdempotencyKeyReusedException(message, requestId);
+            case InactiveCityException ignored -> new InactiveCityException(message, requestId);
+            case ResourceNotFoundException ignored -> new ResourceNotFoundException(message, requestId);
+            case ValidationException ignored -> new ValidationException(message, requestId);
+            default -> new CityException(message, exception.getCode(), requestId);
+        };
+        if (Objects.nonNull(exception.getCause())) {
+            copy.initCause(exception.getCause());
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,200 @@
+package hiperium.city.functions.common.concurrency;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.tracing.InvocationTrace;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The TaskScope class runs independent subtasks of an invocation concurrently on virtual threads, in the style
+ * of the structured concurrency API, which is still a preview feature in Java 21:
+ * <pre>{@code
+ * try (TaskScope scope = TaskScope.open(context, requestId)) {
+ *     TaskScope.Subtask<City> city = scope.fork(() -> cityRepository.find(cityId));
+ *     TaskScope.Subtask<List<Device>> devices = scope.fork(() -> deviceRepository.findByCity(cityId));
+ *     scope.join();
+ *     return new CityDetails(city.get(), devices.get());
+ * }
+ * }</pre>
+ * The first subtask that fails cancels its siblings, and {@link #join()} throws a {@link CityException}
+ * carrying the request ID of the invocation. Subtasks still running when the deadline is reached are cancelled
+ * too. The logging MDC, the {@link InvocationDeadline} and the {@link InvocationTrace} of the thread forking a
+ * subtask are carried into it, so its log lines keep the request ID, the helpers it calls honor the same deadline,
+ * and the stages it records land in the trace of the invocation.
+ * A scope must be opened, forked, joined and closed by the same thread.
+ */
+public final class TaskScope implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private final InvocationDeadline deadline;
+    private final String requestId;
+
+    private TaskScope(InvocationDeadline deadline, String requestId) {
+        this.deadline = deadline;
+        this.requestId = requestId;
+    }
+
+    /**
+     * Opens a scope bound to the {@link InvocationDeadline} of the current thread.
+     *
+     * @return A new scope, to be used in a try-with-resources statement.
+     */
+    public static TaskScope open() {
+        InvocationDeadline deadline = InvocationDeadline.current();
+        return new TaskScope(deadline, deadline.getRequestId());
+    }
+
+    /**
+     * Opens a scope whose deadline is the remaining time of the invocation,
+     * minus {@link InvocationDeadline#DEFAULT_SAFETY_MARGIN}.
+     *
+     * @param context   The Lambda context of the invocation.
+     * @param requestId The request ID propagated in the exceptions of the scope.
+     * @return A new scope, to be used in a try-with-resources statement.
+     */
+    public static TaskScope open(final Context context, final String requestId) {
+        return new TaskScope(InvocationDeadline.fromContext(context, requestId), requestId);
+    }
+
+    /**
+     * Opens a scope whose subtasks must complete within the given timeout.
+     *
+     * @param timeout   The maximum time to wait for the subtasks in {@link #join()}.
+     * @param requestId The request ID propagated in the exceptions of the scope.
+     * @return A new scope, to be used in a try-with-resources statement.
+     */
+    public static TaskScope open(final Duration timeout, final String requestId) {
+        return new TaskScope(InvocationDeadline.after(timeout, requestId), requestId);
+    }
+
+    /**
+     * Starts the given task in a new virtual thread.
+     *
+     * @param task The task to run.
+     * @param <T>  The type of the task result.
+     * @return A handle to retrieve the result of the task after {@link #join()}.
+     */
+    public <T> Subtask<T> fork(final Callable<? extends T> task) {
+        Map<String, String> contextMap = MDC.getCopyOfContextMap();
+        InvocationTrace trace = InvocationTrace.current();
+        Future<T> future = this.executor.submit(() -> {
+            InvocationDeadline.bind(this.deadline);
+            InvocationTrace.bind(trace);
+            if (Objects.nonNull(contextMap)) {
+                MDC.setContextMap(contextMap);
+            }
+            try {
+                return task.call();
+            } catch (Exception | Error exception) {
+                if (this.firstFailure.compareAndSet(null, exception)) {
+                    this.cancelAll();
+                }
+                throw exception;
+            } finally {
+                InvocationDeadline.clear();
+                InvocationTrace.unbind();
+                MDC.clear();
+            }
+        });
+        this.futures.add(future);
+        return new Subtask<>(future);
+    }
+
+    /**
+     * Waits for all the forked subtasks to complete.
+     *
+     * @throws CityException If a subtask failed, with the exception of the first failed subtask.
+     * @throws hiperium.city.functions.common.exceptions.DeadlineExceededException If the subtasks didn't complete
+     *                                                                             before the deadline.
+     */
+    public void join() {
+        for (Future<?> future : this.futures) {
+            try {
+                future.get(this.deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (CancellationException exception) {
+                // The failure is reported through the first failure of the scope.
+            } catch (ExecutionException exception) {
+                // Normally recorded by the subtask itself, kept here so no failure is ever ignored.
+                this.firstFailure.compareAndSet(null, exception.getCause());
+            } catch (TimeoutException exception) {
+                this.cancelAll();
+                throw this.deadline.exceeded("Subtasks");
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                this.cancelAll();
+                throw new CityException("Interrupted while waiting for the subtasks.",
+                    ErrorCode.INTERNAL_003, this.requestId, exception);
+            }
+        }
+        Throwable failure = this.firstFailure.get();
+        if (Objects.nonNull(failure)) {
+            throw this.toCityException(failure);
+        }
+    }
+
+    /**
+     * Cancels the subtasks that are still running and releases the scope.
+     */
+    @Override
+    public void close() {
+        this.cancelAll();
+        this.executor.shutdownNow();
+    }
+
+    private void cancelAll() {
+        for (Future<?> future : this.futures) {
+            future.cancel(true);
+        }
+    }
+
+    private CityException toCityException(final Throwable failure) {
+        if (failure instanceof CityException cityException) {
+            return Objects.nonNull(cityException.getRequestId()) ? cityException
+                : new CityException(cityException.getMessage(), cityException.getCode(), this.requestId, cityException);
+        }
+        return new CityException("Subtask failed: " + failure.getMessage(), ErrorCode.INTERNAL_003,
+            this.requestId, failure);
+    }
+
+    /**
+     * The Subtask class is a handle to a task forked in a {@link TaskScope}.
+     *
+     * @param <T> The type of the task result.
+     */
+    public static final class Subtask<T> {
+
+        private final Future<T> future;
+
+        private Subtask(Future<T> future) {
+            this.future = future;
+        }
+
+        /**
+         * Retrieves the result of the task. It must be called after a successful {@link TaskScope#join()}.
+         *
+         * @return The result of the task.
+         * @throws IllegalStateException If the task didn't complete successfully.
+         */
+        public T get() {
+            return this.future.resultNow();
+        }
+    }
+}
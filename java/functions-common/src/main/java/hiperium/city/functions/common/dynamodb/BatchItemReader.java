@@ -0,0 +1,193 @@
+package hiperium.city.functions.common.dynamodb;
+
+import hiperium.city.functions.common.concurrency.InvocationDeadline;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricCounter;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * The BatchItemReader class reads many items of a DynamoDB table by their partition key with
+ * BatchGetItem requests, instead of issuing one GetItem call per ID.
+ * <p>
+ * The requested IDs are de-duplicated and split into chunks of {@value #MAX_KEYS_PER_BATCH} keys, which are
+ * sent concurrently through the asynchronous client. Keys that DynamoDB reports as unprocessed are requested
+ * again after an exponential backoff with full jitter. The items are returned in the order of the requested IDs.
+ * The reads and their retries are bounded by the {@link InvocationDeadline} of the calling thread.
+ *
+ * @param <V> The type the table items are mapped to.
+ */
+public final class BatchItemReader<V> {
+
+    /**
+     * Maximum number of keys DynamoDB accepts in a single BatchGetItem request.
+     */
+    public static final int MAX_KEYS_PER_BATCH = 100;
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(50L);
+    private static final long MAX_BACKOFF_MILLIS = 2_000L;
+    private static final String OPERATION = "BatchGetItem";
+    private static final MetricCounter RETRIES = FunctionsMetrics.writer().counter("BatchGetItemRetries");
+
+    private final DynamoDbAsyncClient dynamoDbClient;
+    private final String tableName;
+    private final String partitionKeyName;
+    private final Function<Map<String, AttributeValue>, V> itemMapper;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+
+    /**
+     * Constructs a new BatchItemReader.
+     *
+     * @param dynamoDbClient   The asynchronous DynamoDB client used to read the items.
+     * @param tableName        The name of the table holding the items.
+     * @param partitionKeyName The name of the string partition key of the table.
+     * @param itemMapper       The function that maps a table item to the returned type.
+     */
+    public BatchItemReader(DynamoDbAsyncClient dynamoDbClient,
+                           String tableName,
+                           String partitionKeyName,
+                           Function<Map<String, AttributeValue>, V> itemMapper) {
+        this(dynamoDbClient, tableName, partitionKeyName, itemMapper, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF);
+    }
+
+    BatchItemReader(DynamoDbAsyncClient dynamoDbClient,
+                    String tableName,
+                    String partitionKeyName,
+                    Function<Map<String, AttributeValue>, V> itemMapper,
+                    int maxAttempts,
+                    Duration baseBackoff) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.partitionKeyName = partitionKeyName;
+        this.itemMapper = itemMapper;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoff.toMillis();
+    }
+
+    /**
+     * Reads the items identified by the given requests, such as validated {@code CityIdRequest} objects.
+     *
+     * @param requests  The requests holding the IDs of the items to read.
+     * @param idMapper  The function that extracts the item ID from a request.
+     * @param requestId The request ID used to trace a failure.
+     * @param <T>       The type of the requests.
+     * @return The items in the order of the requests, with {@code null} elements for the missing items.
+     * @throws CityException If the items couldn't be read, even after retrying the unprocessed keys.
+     */
+    public <T> List<V> readAll(final Collection<T> requests,
+                               final Function<? super T, String> idMapper,
+                               final String requestId) {
+        List<String> ids = new ArrayList<>(requests.size());
+        for (T request : requests) {
+            ids.add(idMapper.apply(request));
+        }
+        return this.readAll(ids, requestId);
+    }
+
+    /**
+     * Reads the items identified by the given IDs.
+     *
+     * @param ids       The IDs of the items to read. Duplicated IDs are read only once.
+     * @param requestId The request ID used to trace a failure.
+     * @return The items in the order of the IDs, with {@code null} elements for the missing items.
+     * @throws CityException             If the items couldn't be read, even after retrying the unprocessed keys.
+     * @throws DeadlineExceededException If the items couldn't be read before the invocation deadline.
+     */
+    public List<V> readAll(final Collection<String> ids, final String requestId) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            keys.add(Map.of(this.partitionKeyName, AttributeValue.fromS(id)));
+        }
+        InvocationDeadline deadline = InvocationDeadline.current();
+        deadline.ensureRemaining(OPERATION);
+        Map<String, V> items = new ConcurrentHashMap<>(keys.size());
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_BATCH) {
+            List<Map<String, AttributeValue>> chunk = keys.subList(start, Math.min(start + MAX_KEYS_PER_BATCH, keys.size()));
+            chunks.add(this.readChunk(chunk, items, 1, deadline));
+        }
+        CompletableFuture<Void> allChunks = CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new));
+        try {
+            allChunks.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof DeadlineExceededException deadlineExceeded) {
+                throw deadlineExceeded;
+            }
+            throw new CityException("Couldn't read the items of table " + this.tableName + ".",
+                ErrorCode.INTERNAL_003, requestId, exception.getCause());
+        } catch (TimeoutException exception) {
+            allChunks.cancel(true);
+            throw deadline.exceeded(OPERATION);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CityException("Interrupted while reading the items of table " + this.tableName + ".",
+                ErrorCode.INTERNAL_003, requestId, exception);
+        }
+
+        List<V> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            result.add(items.get(id));
+        }
+        return result;
+    }
+
+    private CompletableFuture<Void> readChunk(final List<Map<String, AttributeValue>> keys,
+                                              final Map<String, V> items,
+                                              int attempt,
+                                              final InvocationDeadline deadline) {
+        BatchGetItemRequest request = BatchGetItemRequest.builder()
+            .requestItems(Map.of(this.tableName, KeysAndAttributes.builder().keys(keys).build()))
+            .build();
+        return this.dynamoDbClient.batchGetItem(request).thenCompose(response -> {
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(this.tableName, List.of())) {
+                V value = this.itemMapper.apply(item);
+                if (Objects.nonNull(value)) {
+                    items.put(item.get(this.partitionKeyName).s(), value);
+                }
+            }
+            KeysAndAttributes unprocessed = response.unprocessedKeys().get(this.tableName);
+            if (Objects.isNull(unprocessed) || unprocessed.keys().isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (attempt >= this.maxAttempts) {
+                return CompletableFuture.failedFuture(new IllegalStateException(unprocessed.keys().size()
+                    + " keys were still unprocessed after " + attempt + " attempts."));
+            }
+            long backoffMillis = this.backoffMillis(attempt);
+            if (TimeUnit.MILLISECONDS.toNanos(backoffMillis) >= deadline.remainingNanos()) {
+                return CompletableFuture.failedFuture(deadline.exceeded(OPERATION));
+            }
+            RETRIES.increment();
+            return CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> this.readChunk(unprocessed.keys(), items, attempt + 1, deadline));
+        });
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, this.baseBackoffMillis << Math.min(attempt, 16));
+        return ceiling <= 0L ? 0L : ThreadLocalRandom.current().nextLong(ceiling + 1L);
+    }
+}
@@ -31,6 +31,13 @@ public enum ErrorCode {
      */
     BUSINESS_003("Inactive city error.", HttpStatus.FORBIDDEN.value()),
 
+    /**
+     * Error code indicating that an idempotency key was reused for a different request.
+     * This error occurs when the body or the caller of a request doesn't match the ones of the request
+     * whose response is stored under the same key. Associated with HTTP status code 422 Unprocessable Entity.
+     */
+    BUSINESS_004("Idempotency key reused error.", HttpStatus.UNPROCESSABLE_ENTITY.value()),
+
     /**
      * Error code indicating an internal server error.
      * Associated with an HTTP status of 500 (Internal Server Error).
@@ -52,7 +59,15 @@ public enum ErrorCode {
      * categorized by other internal error codes.
      * It is associated with the HTTP status code for internal server errors.
      */
-    INTERNAL_003("Operation error.", HttpStatus.INTERNAL_SERVER_ERROR.value());
+    INTERNAL_003("Operation error.", HttpStatus.INTERNAL_SERVER_ERROR.value()),
+
+    /**
+     * Represents an invocation that ran out of time before completing its work.
+     * This error is raised shortly before the Lambda timeout, so the client receives a well-formed
+     * response instead of a platform timeout.
+     * It is associated with the HTTP status code 504 (Gateway Timeout).
+     */
+    INTERNAL_004("Deadline exceeded error.", HttpStatus.GATEWAY_TIMEOUT.value());
 
     private final int httpStatus;
     private final String description;
@@ -0,0 +1,42 @@
+package hiperium.city.functions.common.enums;
+
+/**
+ * Represents the stages of a function invocation whose durations are traced per request.
+ */
+public enum InvocationStage {
+
+    /**
+     * Deserialization of the incoming event and its body.
+     */
+    PARSE("Parse"),
+
+    /**
+     * Bean validation of the deserialized request.
+     */
+    VALIDATE("Validate"),
+
+    /**
+     * Business logic of the function, including calls to downstream services.
+     */
+    BUSINESS("Business"),
+
+    /**
+     * Serialization of the response returned to the caller.
+     */
+    SERIALIZE("Serialize");
+
+    private final String value;
+
+    InvocationStage(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Retrieves the value associated with this instance.
+     *
+     * @return the value as a {@code String}.
+     */
+    public String getValue() {
+        return value;
+    }
+}
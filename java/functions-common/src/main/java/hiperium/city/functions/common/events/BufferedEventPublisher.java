@@ -0,0 +1,217 @@
+package hiperium.city.functions.common.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import hiperium.city.functions.common.concurrency.InvocationDeadline;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricCounter;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The BufferedEventPublisher class buffers the events published during an invocation and sends them to the
+ * city event bus when the invocation ends, with as few PutEvents requests as possible.
+ * <p>
+ * On {@link #flush(String)}, the buffered events are packed into requests of at most
+ * {@value #MAX_ENTRIES_PER_REQUEST} entries and {@value #MAX_REQUEST_SIZE} bytes, which are sent concurrently.
+ * When EventBridge rejects some entries of a request, only those entries are sent again, after an exponential
+ * backoff with full jitter. Retries that can't complete before the {@link InvocationDeadline} of the calling thread
+ * aren't attempted.
+ */
+public final class BufferedEventPublisher {
+
+    /**
+     * Maximum number of entries EventBridge accepts in a single PutEvents request.
+     */
+    public static final int MAX_ENTRIES_PER_REQUEST = 10;
+
+    /**
+     * Maximum size in bytes EventBridge accepts for a single PutEvents request.
+     */
+    public static final int MAX_REQUEST_SIZE = 256 * 1024;
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(BufferedEventPublisher.class);
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(50L);
+    private static final long MAX_BACKOFF_MILLIS = 1_000L;
+    private static final MetricCounter PUBLISHED = FunctionsMetrics.writer().counter("EventsPublished");
+    private static final MetricCounter FAILED = FunctionsMetrics.writer().counter("EventsFailed");
+
+    private final EventBusClient eventBusClient;
+    private final String eventBusName;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final Queue<EventEntry> buffer = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a new BufferedEventPublisher.
+     *
+     * @param eventBusClient The client used to send the PutEvents requests.
+     * @param eventBusName   The name of the event bus receiving the events.
+     */
+    public BufferedEventPublisher(EventBusClient eventBusClient, String eventBusName) {
+        this(eventBusClient, eventBusName, DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF);
+    }
+
+    BufferedEventPublisher(EventBusClient eventBusClient, String eventBusName, int maxAttempts, Duration baseBackoff) {
+        this.eventBusClient = eventBusClient;
+        this.eventBusName = eventBusName;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoff.toMillis();
+    }
+
+    /**
+     * Buffers the given event until the next flush.
+     *
+     * @param entry     The event to publish.
+     * @param requestId The request ID used to trace a failure.
+     * @throws ValidationException If the event alone exceeds the maximum request size.
+     */
+    public void publish(final EventEntry entry, final String requestId) {
+        if (entry.sizeInBytes() > MAX_REQUEST_SIZE) {
+            throw new ValidationException("The event exceeds the maximum size of " + MAX_REQUEST_SIZE
+                + " bytes: " + entry.detailType(), requestId);
+        }
+        this.buffer.add(entry);
+    }
+
+    /**
+     * Serializes the given detail into JSON and buffers the resulting event until the next flush.
+     *
+     * @param source     The source of the event.
+     * @param detailType The type of the event.
+     * @param detail     The payload of the event, serialized with the shared object mapper.
+     * @param requestId  The request ID used to trace a failure.
+     * @throws CityException If an error occurs during JSON serialization of the detail.
+     * @throws ValidationException If the event alone exceeds the maximum request size.
+     */
+    public void publish(final String source, final String detailType, final Object detail, final String requestId) {
+        String json;
+        try {
+            json = FunctionsUtil.OBJECT_MAPPER.writeValueAsString(detail);
+        } catch (JsonProcessingException exception) {
+            throw new CityException("Error serializing event detail: " + detail, ErrorCode.INTERNAL_002,
+                requestId, exception);
+        }
+        this.publish(new EventEntry(source, detailType, json), requestId);
+    }
+
+    /**
+     * Retrieves the number of events waiting for the next flush.
+     *
+     * @return The number of buffered events.
+     */
+    public int pendingCount() {
+        return this.buffer.size();
+    }
+
+    /**
+     * Sends all the buffered events and waits for the requests to complete. It must be called before the
+     * function returns its response, as the execution environment may be frozen right after.
+     *
+     * @param requestId The request ID used to trace a failure.
+     * @throws CityException If some events couldn't be published after retrying them, or if the calling thread
+     *                       is interrupted while waiting for the requests.
+     * @throws hiperium.city.functions.common.exceptions.DeadlineExceededException If the requests didn't complete
+     *                                                                             before the invocation deadline.
+     */
+    public void flush(final String requestId) {
+        InvocationDeadline deadline = InvocationDeadline.current();
+        List<CompletableFuture<List<EventEntry>>> requests = new ArrayList<>();
+        List<EventEntry> batch = new ArrayList<>(MAX_ENTRIES_PER_REQUEST);
+        int batchSize = 0;
+        EventEntry entry;
+        while (Objects.nonNull(entry = this.buffer.poll())) {
+            int entrySize = entry.sizeInBytes();
+            if (batch.size() == MAX_ENTRIES_PER_REQUEST || batchSize + entrySize > MAX_REQUEST_SIZE) {
+                requests.add(this.send(batch, 1, deadline));
+                batch = new ArrayList<>(MAX_ENTRIES_PER_REQUEST);
+                batchSize = 0;
+            }
+            batch.add(entry);
+            batchSize += entrySize;
+        }
+        if (!batch.isEmpty()) {
+            requests.add(this.send(batch, 1, deadline));
+        }
+
+        int failedEntries = 0;
+        for (CompletableFuture<List<EventEntry>> request : requests) {
+            try {
+                failedEntries += request.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS).size();
+            } catch (ExecutionException exception) {
+                throw new CityException("Couldn't publish the events to the event bus " + this.eventBusName + ".",
+                    ErrorCode.INTERNAL_003, requestId, exception.getCause());
+            } catch (TimeoutException exception) {
+                throw deadline.exceeded("PutEvents");
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new CityException("Interrupted while publishing the events to the event bus "
+                    + this.eventBusName + ".", ErrorCode.INTERNAL_003, requestId, exception);
+            }
+        }
+        if (failedEntries > 0) {
+            FAILED.add(failedEntries);
+            throw new CityException(failedEntries + " events couldn't be published to the event bus "
+                + this.eventBusName + ".", ErrorCode.INTERNAL_003, requestId);
+        }
+    }
+
+    private CompletableFuture<List<EventEntry>> send(final List<EventEntry> entries,
+                                                     int attempt,
+                                                     final InvocationDeadline deadline) {
+        return this.putEvents(entries)
+            .handle((errorCodes, exception) -> {
+                if (Objects.nonNull(exception)) {
+                    LOGGER.warn("PutEvents request failed on attempt {}: {}", attempt, exception.getMessage());
+                    return entries;
+                }
+                List<EventEntry> failed = new ArrayList<>();
+                for (int index = 0; index < entries.size(); index++) {
+                    if (Objects.nonNull(errorCodes.get(index))) {
+                        failed.add(entries.get(index));
+                    }
+                }
+                PUBLISHED.add(entries.size() - failed.size());
+                return failed;
+            })
+            .thenCompose(failed -> {
+                long backoffMillis = this.backoffMillis(attempt);
+                if (failed.isEmpty() || attempt >= this.maxAttempts
+                    || TimeUnit.MILLISECONDS.toNanos(backoffMillis) >= deadline.remainingNanos()) {
+                    return CompletableFuture.completedFuture(failed);
+                }
+                return CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> this.send(failed, attempt + 1, deadline));
+            });
+    }
+
+    private CompletableFuture<List<String>> putEvents(final List<EventEntry> entries) {
+        try {
+            return this.eventBusClient.putEvents(this.eventBusName, entries);
+        } catch (RuntimeException exception) {
+            // A client failing before sending the request is retried like a failed request.
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, this.baseBackoffMillis << Math.min(attempt, 16));
+        return ceiling <= 0L ? 0L : ThreadLocalRandom.current().nextLong(ceiling + 1L);
+    }
+}
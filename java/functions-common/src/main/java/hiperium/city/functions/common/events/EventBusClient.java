@@ -0,0 +1,35 @@
+package hiperium.city.functions.common.events;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The EventBusClient interface sends a single PutEvents request to an event bus. It decouples the
+ * {@link BufferedEventPublisher} from the SDK client, so functions can adapt the {@code EventBridgeAsyncClient}
+ * they already configure, and tests can use a LocalStack endpoint or an in-memory stand-in:
+ * <pre>{@code
+ * EventBusClient client = (eventBusName, entries) -> eventBridgeAsyncClient
+ *     .putEvents(request -> request.entries(entries.stream()
+ *         .map(entry -> PutEventsRequestEntry.builder()
+ *             .eventBusName(eventBusName)
+ *             .source(entry.source())
+ *             .detailType(entry.detailType())
+ *             .detail(entry.detail())
+ *             .build())
+ *         .toList()))
+ *     .thenApply(response -> response.entries().stream().map(PutEventsResultEntry::errorCode).toList());
+ * }</pre>
+ */
+@FunctionalInterface
+public interface EventBusClient {
+
+    /**
+     * Sends the given entries to the event bus in a single request.
+     *
+     * @param eventBusName The name of the event bus.
+     * @param entries      The entries to send, at most {@value BufferedEventPublisher#MAX_ENTRIES_PER_REQUEST}.
+     * @return A future completed with the error code of each entry, in the order of the entries,
+     *         with {@code null} elements for the accepted ones.
+     */
+    CompletableFuture<List<String>> putEvents(String eventBusName, List<EventEntry> entries);
+}
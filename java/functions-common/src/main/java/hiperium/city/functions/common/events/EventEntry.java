@@ -0,0 +1,48 @@
+package hiperium.city.functions.common.events;
+
+import java.util.Objects;
+
+/**
+ * The EventEntry record represents an event to be published to the city event bus.
+ *
+ * @param source     The source of the event, e.g., {@code hiperium.city.data}.
+ * @param detailType The type of the event, used by the event bus rules to route it.
+ * @param detail     The JSON payload of the event.
+ */
+public record EventEntry(
+    String source,
+    String detailType,
+    String detail
+) {
+
+    /**
+     * Calculates the size of the entry as EventBridge accounts for it against the request size limit,
+     * that is, the UTF-8 length of its source, detail type and detail.
+     *
+     * @return The size of the entry in bytes.
+     */
+    public int sizeInBytes() {
+        return utf8Length(this.source) + utf8Length(this.detailType) + utf8Length(this.detail);
+    }
+
+    private static int utf8Length(final String value) {
+        if (Objects.isNull(value)) {
+            return 0;
+        }
+        int length = 0;
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            if (character < 0x80) {
+                length++;
+            } else if (character < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(character)) {
+                length += 4;
+                index++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -6,7 +6,8 @@ import hiperium.city.functions.common.enums.ErrorCode;
  * The CityException class is an exception thrown when there is an error related to a city.
  */
 public sealed class CityException extends RuntimeException
-    permits InactiveCityException, ResourceNotFoundException, ValidationException {
+    permits DeadlineExceededException, IdempotencyKeyReusedException, InactiveCityException, ResourceNotFoundException,
+    ValidationException {
 
     /** The error code. */
     private final ErrorCode code;
@@ -0,0 +1,20 @@
+package hiperium.city.functions.common.exceptions;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+
+/**
+ * The DeadlineExceededException class is an exception thrown when an invocation reaches its deadline
+ * before completing its work, so it can return an error response before the Lambda timeout.
+ */
+public final class DeadlineExceededException extends CityException {
+
+    /**
+     * Constructs a new DeadlineExceededException with the specified detail message and request ID.
+     *
+     * @param message   The exception description.
+     * @param requestId The request ID.
+     */
+    public DeadlineExceededException(String message, String requestId) {
+        super(message, ErrorCode.INTERNAL_004, requestId);
+    }
+}
@@ -0,0 +1,19 @@
+package hiperium.city.functions.common.exceptions;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+
+/**
+ * Exception thrown when an idempotency key is reused for a request that differs from the stored one.
+ */
+public final class IdempotencyKeyReusedException extends CityException {
+
+    /**
+     * Exception thrown when an idempotency key is reused for a request that differs from the stored one.
+     *
+     * @param message   The exception description.
+     * @param requestId The request ID.
+     */
+    public IdempotencyKeyReusedException(String message, String requestId) {
+        super(message, ErrorCode.BUSINESS_004, requestId);
+    }
+}
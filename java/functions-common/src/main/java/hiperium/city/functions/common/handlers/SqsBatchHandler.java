@@ -0,0 +1,135 @@
+package hiperium.city.functions.common.handlers;
+
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricCounter;
+import hiperium.city.functions.common.requests.SqsBatchRequest;
+import hiperium.city.functions.common.responses.SqsBatchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * The SqsBatchHandler class is the base class of functions consuming Amazon SQS batches, such as the one
+ * draining the city event bus DLQ. Subclasses only implement {@link #processMessage(SqsBatchRequest.SqsMessage)}.
+ * <p>
+ * The messages of a batch are processed in parallel on virtual threads, with at most the configured number
+ * of messages in flight. The handler returns a partial batch response, so the event source mapping must enable
+ * {@code ReportBatchItemFailures}: only the failed messages return to the queue. A {@link CityException} is
+ * retried when {@link #isRetryable(CityException)} says so, otherwise the message is discarded, since
+ * processing it again would fail the same way. Any other exception is retried.
+ * <p>
+ * Messages are processed out of order, so this handler is meant for standard queues, not FIFO ones.
+ */
+public abstract class SqsBatchHandler implements Function<SqsBatchRequest, SqsBatchResponse> {
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(SqsBatchHandler.class);
+    private static final MetricCounter RETRIED = FunctionsMetrics.writer().counter("SqsMessagesRetried");
+    private static final MetricCounter DISCARDED = FunctionsMetrics.writer().counter("SqsMessagesDiscarded");
+
+    private final int maxConcurrency;
+
+    /**
+     * Constructs a new SqsBatchHandler.
+     *
+     * @param maxConcurrency The maximum number of messages processed at the same time.
+     */
+    protected SqsBatchHandler(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("The maximum concurrency must be positive.");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Processes all the messages of the given batch and reports the ones that must be retried.
+     *
+     * @param batchRequest The batch delivered by the SQS event source mapping.
+     * @return The partial batch response listing the failed messages, in the order of the batch.
+     */
+    @Override
+    public SqsBatchResponse apply(final SqsBatchRequest batchRequest) {
+        List<SqsBatchRequest.SqsMessage> messages = Objects.isNull(batchRequest.records())
+            ? List.of() : batchRequest.records();
+        AtomicReferenceArray<SqsBatchResponse.BatchItemFailure> failures =
+            new AtomicReferenceArray<>(messages.size());
+        Semaphore permits = new Semaphore(this.maxConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index = 0; index < messages.size(); index++) {
+                SqsBatchRequest.SqsMessage message = messages.get(index);
+                int position = index;
+                // Every message counts as failed until it's processed, so an Error thrown by the task
+                // returns the message to the queue instead of deleting it.
+                failures.set(position, new SqsBatchResponse.BatchItemFailure(message.messageId()));
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        if (this.processSafely(message)) {
+                            failures.set(position, null);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        List<SqsBatchResponse.BatchItemFailure> batchItemFailures = new ArrayList<>();
+        for (int index = 0; index < messages.size(); index++) {
+            if (Objects.nonNull(failures.get(index))) {
+                batchItemFailures.add(failures.get(index));
+            }
+        }
+        return new SqsBatchResponse(batchItemFailures);
+    }
+
+    /**
+     * Processes a single message of the batch. It's called concurrently from several virtual threads.
+     *
+     * @param message The message to process.
+     * @throws CityException If the message couldn't be processed.
+     */
+    protected abstract void processMessage(SqsBatchRequest.SqsMessage message);
+
+    /**
+     * Decides whether a message that failed with the given exception must return to the queue.
+     * By default, only internal errors are retried, as business errors such as validation failures or
+     * missing cities would fail again.
+     *
+     * @param exception The exception thrown while processing the message.
+     * @return {@code true} if the message must be retried, {@code false} if it must be discarded.
+     */
+    protected boolean isRetryable(final CityException exception) {
+        return exception.getCode().getHttpStatus() >= 500;
+    }
+
+    private boolean processSafely(final SqsBatchRequest.SqsMessage message) {
+        try {
+            this.processMessage(message);
+            return true;
+        } catch (CityException exception) {
+            if (this.isRetryable(exception)) {
+                LOGGER.warn("Message {} will be retried - {}: {}", message.messageId(),
+                    exception.getCode(), exception.getMessage());
+                RETRIED.increment();
+                return false;
+            }
+            LOGGER.error("Message {} discarded - {}: {}", message.messageId(),
+                exception.getCode(), exception.getMessage());
+            DISCARDED.increment();
+            return true;
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Message {} will be retried - Unexpected error: {}", message.messageId(),
+                exception.getMessage());
+            RETRIED.increment();
+            return false;
+        }
+    }
+}
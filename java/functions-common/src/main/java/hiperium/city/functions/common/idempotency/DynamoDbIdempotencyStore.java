@@ -0,0 +1,120 @@
+package hiperium.city.functions.common.idempotency;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The DynamoDbIdempotencyStore class keeps the stored responses in a DynamoDB table, shared by all the
+ * containers of a function. Responses are written with a conditional PutItem, so the first response stored
+ * for a key wins. The {@value #EXPIRES_AT_ATTRIBUTE} attribute holds an epoch second, so it can be configured
+ * as the time-to-live attribute of the table.
+ * <p>
+ * The table must have a string partition key named {@value #KEY_ATTRIBUTE}.
+ */
+public final class DynamoDbIdempotencyStore implements IdempotencyStore {
+
+    /**
+     * The partition key attribute holding the idempotency key.
+     */
+    public static final String KEY_ATTRIBUTE = "id";
+
+    /**
+     * The attribute holding the epoch second after which the response expires.
+     */
+    public static final String EXPIRES_AT_ATTRIBUTE = "expiresAt";
+
+    private static final String STATUS_CODE_ATTRIBUTE = "statusCode";
+    private static final String HEADERS_ATTRIBUTE = "headers";
+    private static final String PAYLOAD_ATTRIBUTE = "payload";
+    private static final String REQUEST_HASH_ATTRIBUTE = "requestHash";
+    private static final String SAVE_CONDITION = "attribute_not_exists(#id) OR #expiresAt <= :now";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final Clock clock;
+
+    /**
+     * Constructs a new DynamoDbIdempotencyStore.
+     *
+     * @param dynamoDbClient The DynamoDB client used to read and write the responses.
+     * @param tableName      The name of the table holding the responses.
+     */
+    public DynamoDbIdempotencyStore(DynamoDbClient dynamoDbClient, String tableName) {
+        this(dynamoDbClient, tableName, Clock.systemUTC());
+    }
+
+    DynamoDbIdempotencyStore(DynamoDbClient dynamoDbClient, String tableName, Clock clock) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<StoredResponse> find(final String key) {
+        GetItemRequest request = GetItemRequest.builder()
+            .tableName(this.tableName)
+            .key(Map.of(KEY_ATTRIBUTE, AttributeValue.fromS(key)))
+            .consistentRead(true)
+            .build();
+        GetItemResponse response = this.dynamoDbClient.getItem(request);
+        if (!response.hasItem() || response.item().isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, AttributeValue> item = response.item();
+        Map<String, String> headers = new HashMap<>();
+        AttributeValue headersValue = item.get(HEADERS_ATTRIBUTE);
+        if (Objects.nonNull(headersValue) && headersValue.hasM()) {
+            headersValue.m().forEach((name, value) -> headers.put(name, value.s()));
+        }
+        AttributeValue requestHash = item.get(REQUEST_HASH_ATTRIBUTE);
+        StoredResponse storedResponse = new StoredResponse(
+            Integer.parseInt(item.get(STATUS_CODE_ATTRIBUTE).n()),
+            Map.copyOf(headers),
+            item.get(PAYLOAD_ATTRIBUTE).s(),
+            Objects.isNull(requestHash) ? null : requestHash.s(),
+            Long.parseLong(item.get(EXPIRES_AT_ATTRIBUTE).n()));
+        return storedResponse.isExpired(this.clock.instant().getEpochSecond())
+            ? Optional.empty() : Optional.of(storedResponse);
+    }
+
+    @Override
+    public boolean saveIfAbsent(final String key, final StoredResponse response) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(KEY_ATTRIBUTE, AttributeValue.fromS(key));
+        item.put(STATUS_CODE_ATTRIBUTE, AttributeValue.fromN(Integer.toString(response.statusCode())));
+        item.put(PAYLOAD_ATTRIBUTE, AttributeValue.fromS(response.payload()));
+        item.put(EXPIRES_AT_ATTRIBUTE, AttributeValue.fromN(Long.toString(response.expiresAt())));
+        if (Objects.nonNull(response.headers()) && !response.headers().isEmpty()) {
+            Map<String, AttributeValue> headers = HashMap.newHashMap(response.headers().size());
+            response.headers().forEach((name, value) -> headers.put(name, AttributeValue.fromS(value)));
+            item.put(HEADERS_ATTRIBUTE, AttributeValue.fromM(headers));
+        }
+        if (Objects.nonNull(response.requestHash())) {
+            item.put(REQUEST_HASH_ATTRIBUTE, AttributeValue.fromS(response.requestHash()));
+        }
+        PutItemRequest request = PutItemRequest.builder()
+            .tableName(this.tableName)
+            .item(item)
+            .conditionExpression(SAVE_CONDITION)
+            .expressionAttributeNames(Map.of("#id", KEY_ATTRIBUTE, "#expiresAt", EXPIRES_AT_ATTRIBUTE))
+            .expressionAttributeValues(Map.of(":now",
+                AttributeValue.fromN(Long.toString(this.clock.instant().getEpochSecond()))))
+            .build();
+        try {
+            this.dynamoDbClient.putItem(request);
+            return true;
+        } catch (ConditionalCheckFailedException exception) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package hiperium.city.functions.common.idempotency;
+
+import hiperium.city.functions.common.concurrency.SingleFlight;
+import hiperium.city.functions.common.exceptions.IdempotencyKeyReusedException;
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricCounter;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The Idempotency class replays the stored response of requests that were already answered, instead of running
+ * their handler again when API Gateway or a client retries them:
+ * <pre>{@code
+ * private static final Idempotency IDEMPOTENCY =
+ *     new Idempotency(new DynamoDbIdempotencyStore(dynamoDbClient, "Idempotency"), Duration.ofHours(1));
+ *
+ * return IDEMPOTENCY.execute(functionRequest, () -> this.handle(functionRequest));
+ * }</pre>
+ * Requests are identified by the client-supplied {@value #IDEMPOTENCY_KEY_HEADER} header, scoped to the route
+ * key, or else by the API Gateway request ID. Each stored response keeps a fingerprint of the caller identity, the
+ * path and the body of its request, and it's only replayed to a request with the same fingerprint, so a reused key
+ * can't disclose the response of another caller. Responses are stored with all their headers and an uncompressed
+ * payload, which is compressed again for the encoding accepted by the retrying client. Only responses with a status code below 500 are stored, as server
+ * errors are expected to succeed when retried. Concurrent duplicates reaching the same container share a single
+ * handler execution. A failing store never fails the request: the handler runs as if no response was stored.
+ */
+public final class Idempotency {
+
+    /**
+     * The HTTP header carrying the client-supplied idempotency key.
+     */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * The response header added to the replayed responses.
+     */
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(Idempotency.class);
+    private static final MetricCounter REPLAYED = FunctionsMetrics.writer().counter("IdempotentReplays");
+
+    private final IdempotencyStore store;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final SingleFlight<String, Message<String>> inFlight;
+
+    /**
+     * Constructs a new Idempotency.
+     *
+     * @param store The store keeping the responses.
+     * @param ttl   The time a stored response can be replayed.
+     */
+    public Idempotency(IdempotencyStore store, Duration ttl) {
+        this(store, ttl, Clock.systemUTC());
+    }
+
+    Idempotency(IdempotencyStore store, Duration ttl, Clock clock) {
+        this.store = store;
+        this.ttlSeconds = ttl.toSeconds();
+        this.clock = clock;
+        this.inFlight = new SingleFlight<>("Idempotent", Duration.ofSeconds(5));
+    }
+
+    /**
+     * Replays the stored response of the given request, or runs the handler and stores its response.
+     *
+     * @param functionRequest The incoming request, used to derive the idempotency key.
+     * @param handler         The handler producing the response with {@link ResponseUtil}.
+     * @return The replayed or the new response.
+     * @throws IdempotencyKeyReusedException If the response stored for the idempotency key was produced by a request
+     *                                       with a different caller, path or body.
+     */
+    public Message<String> execute(final FunctionRequest functionRequest, final Supplier<Message<String>> handler) {
+        String key = idempotencyKey(functionRequest);
+        if (Objects.isNull(key)) {
+            return handler.get();
+        }
+        String requestHash = requestHash(functionRequest);
+        Optional<StoredResponse> storedResponse = this.find(key);
+        if (storedResponse.isPresent()) {
+            if (!storedResponse.get().matches(requestHash)) {
+                FunctionRequest.RequestContext requestContext = functionRequest.requestContext();
+                throw new IdempotencyKeyReusedException("The idempotency key was already used for a different request.",
+                    Objects.isNull(requestContext) ? null : requestContext.requestId());
+            }
+            REPLAYED.increment();
+            return storedResponse.get().toMessage(functionRequest);
+        }
+        // Duplicates only share an execution when they also accept the same response encoding.
+        String flightKey = key + '#' + requestHash + '#' + functionRequest.header(HttpHeaders.ACCEPT_ENCODING);
+        return this.inFlight.execute(flightKey, () -> {
+            Message<String> response = handler.get();
+            this.save(key, response, requestHash);
+            return response;
+        });
+    }
+
+    /**
+     * Derives the idempotency key of the given request.
+     *
+     * @param functionRequest The incoming request.
+     * @return The route key and the {@value #IDEMPOTENCY_KEY_HEADER} header, when present,
+     *         otherwise the request ID, or {@code null} if the request has neither.
+     */
+    public static String idempotencyKey(final FunctionRequest functionRequest) {
+        FunctionRequest.RequestContext requestContext = functionRequest.requestContext();
+        String clientKey = functionRequest.header(IDEMPOTENCY_KEY_HEADER);
+        if (Objects.nonNull(clientKey) && !clientKey.isBlank()) {
+            String routeKey = Objects.isNull(requestContext) ? null : requestContext.routeKey();
+            return routeKey + '#' + clientKey;
+        }
+        return Objects.isNull(requestContext) ? null : requestContext.requestId();
+    }
+
+    /**
+     * Computes the fingerprint of the given request, which a stored response must match to be replayed.
+     *
+     * @param functionRequest The incoming request.
+     * @return The Base64-encoded SHA-256 digest of the caller identity, the path and the body of the request.
+     */
+    public static String requestHash(final FunctionRequest functionRequest) {
+        FunctionRequest.RequestContext requestContext = functionRequest.requestContext();
+        String principal = Objects.isNull(requestContext) ? null : requestContext.principal();
+        String path = Objects.isNull(requestContext) || Objects.isNull(requestContext.http())
+            ? null : requestContext.http().path();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{principal, path, functionRequest.body()}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 isn't available in this JVM.", exception);
+        }
+    }
+
+    private Optional<StoredResponse> find(final String key) {
+        try {
+            return this.store.find(key);
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Couldn't read the stored response of key {}: {}", key, exception.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void save(final String key, final Message<String> response, final String requestHash) {
+        if (response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE) instanceof Number statusCode
+            && statusCode.intValue() >= 500) {
+            return;
+        }
+        try {
+            this.store.saveIfAbsent(key, StoredResponse.of(response, requestHash,
+                this.clock.instant().getEpochSecond() + this.ttlSeconds));
+        } catch (RuntimeException exception) {
+            LOGGER.warn("Couldn't store the response of key {}: {}", key, exception.getMessage());
+        }
+    }
+}
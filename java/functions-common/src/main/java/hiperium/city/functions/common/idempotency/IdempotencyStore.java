@@ -0,0 +1,26 @@
+package hiperium.city.functions.common.idempotency;
+
+import java.util.Optional;
+
+/**
+ * The IdempotencyStore interface keeps the responses of already answered requests by idempotency key.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Finds the response stored for the given idempotency key.
+     *
+     * @param key The idempotency key of the request.
+     * @return The stored response, or an empty optional if there is none or it has expired.
+     */
+    Optional<StoredResponse> find(String key);
+
+    /**
+     * Stores the response of the given idempotency key, unless a response that hasn't expired is already stored.
+     *
+     * @param key      The idempotency key of the request.
+     * @param response The response to store.
+     * @return {@code true} if the response was stored, {@code false} if another response was stored first.
+     */
+    boolean saveIfAbsent(String key, StoredResponse response);
+}
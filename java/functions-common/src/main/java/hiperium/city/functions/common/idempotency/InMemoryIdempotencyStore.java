@@ -0,0 +1,60 @@
+package hiperium.city.functions.common.idempotency;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The InMemoryIdempotencyStore class keeps the stored responses in a bounded LRU map. Its content is local to
+ * the container, so it only replays retries reaching the same execution environment. It's meant for tests and
+ * local runs, or as a first level in front of a {@link DynamoDbIdempotencyStore}.
+ */
+public final class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Clock clock;
+    private final Map<String, StoredResponse> responses;
+
+    /**
+     * Constructs a new InMemoryIdempotencyStore.
+     *
+     * @param maximumSize The maximum number of responses kept in the store.
+     */
+    public InMemoryIdempotencyStore(int maximumSize) {
+        this(maximumSize, Clock.systemUTC());
+    }
+
+    InMemoryIdempotencyStore(int maximumSize, Clock clock) {
+        this.clock = clock;
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, StoredResponse> eldest) {
+                return this.size() > maximumSize;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<StoredResponse> find(final String key) {
+        StoredResponse response = this.responses.get(key);
+        if (Objects.isNull(response)) {
+            return Optional.empty();
+        }
+        if (response.isExpired(this.clock.instant().getEpochSecond())) {
+            this.responses.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(response);
+    }
+
+    @Override
+    public synchronized boolean saveIfAbsent(final String key, final StoredResponse response) {
+        StoredResponse existing = this.responses.get(key);
+        if (Objects.nonNull(existing) && !existing.isExpired(this.clock.instant().getEpochSecond())) {
+            return false;
+        }
+        this.responses.put(key, response);
+        return true;
+    }
+}
@@ -0,0 +1,106 @@
+package hiperium.city.functions.common.idempotency;
+
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents a function response kept by an {@link IdempotencyStore}, so it can be replayed
+ * without running the handler again.
+ * <p>
+ * The payload is kept uncompressed, and it's compressed again when it's replayed, with the encoding accepted by the
+ * retrying client, which may differ from the one accepted by the original request.
+ *
+ * @param statusCode  The HTTP status code of the response.
+ * @param headers     The headers of the response, such as {@code Content-Type}, {@code Vary} or {@code ETag},
+ *                    without the ones describing its compression.
+ * @param payload     The serialized, uncompressed payload of the response.
+ * @param requestHash The fingerprint of the request that produced the response, as computed by
+ *                    {@link Idempotency#requestHash(FunctionRequest)}.
+ * @param expiresAt   The epoch second after which the response must not be replayed.
+ */
+public record StoredResponse(
+    int statusCode,
+    Map<String, String> headers,
+    String payload,
+    String requestHash,
+    long expiresAt
+) {
+
+    /**
+     * Creates a stored response from the given function response.
+     *
+     * @param response    The response built with {@link ResponseUtil}, compressed or not.
+     * @param requestHash The fingerprint of the request that produced the response.
+     * @param expiresAt   The epoch second after which the response must not be replayed.
+     * @return A new {@code StoredResponse} holding the status code, headers and uncompressed payload of the response.
+     * @throws hiperium.city.functions.common.exceptions.CityException If a compressed payload can't be decompressed.
+     */
+    public static StoredResponse of(final Message<String> response, final String requestHash, long expiresAt) {
+        Message<String> uncompressed = ResponseUtil.decompress(response);
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, Object> header : uncompressed.getHeaders().entrySet()) {
+            if (isStored(header.getKey()) && Objects.nonNull(header.getValue())) {
+                headers.put(header.getKey(), header.getValue().toString());
+            }
+        }
+        Object statusCode = uncompressed.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE);
+        return new StoredResponse(
+            statusCode instanceof Number number ? number.intValue() : 200,
+            Map.copyOf(headers),
+            uncompressed.getPayload(),
+            requestHash,
+            expiresAt);
+    }
+
+    /**
+     * Verifies whether the response can no longer be replayed.
+     *
+     * @param nowEpochSecond The current epoch second.
+     * @return {@code true} if the response has expired.
+     */
+    public boolean isExpired(long nowEpochSecond) {
+        return nowEpochSecond >= this.expiresAt;
+    }
+
+    /**
+     * Verifies whether the response was produced by a request with the given fingerprint.
+     *
+     * @param requestHash The fingerprint of the incoming request.
+     * @return {@code true} if the response can be replayed to the incoming request.
+     */
+    public boolean matches(final String requestHash) {
+        return Objects.equals(this.requestHash, requestHash);
+    }
+
+    /**
+     * Rebuilds the function response, flagged with the {@value Idempotency#REPLAYED_HEADER} header, and compressed
+     * with the encoding accepted by the given request.
+     *
+     * @param functionRequest The retried request, whose {@code Accept-Encoding} header is used for the negotiation.
+     * @return A {@code Message<String>} equivalent to the stored response.
+     * @throws hiperium.city.functions.common.exceptions.CityException If the payload can't be compressed.
+     */
+    public Message<String> toMessage(final FunctionRequest functionRequest) {
+        MessageBuilder<String> builder = MessageBuilder.withPayload(this.payload)
+            .setHeader(ResponseUtil.LAMBDA_STATUS_CODE, this.statusCode);
+        if (Objects.nonNull(this.headers)) {
+            this.headers.forEach(builder::setHeader);
+        }
+        builder.setHeader(Idempotency.REPLAYED_HEADER, Boolean.TRUE.toString());
+        return ResponseUtil.compress(builder.build(), functionRequest);
+    }
+
+    private static boolean isStored(final String name) {
+        return !MessageHeaders.ID.equals(name)
+            && !MessageHeaders.TIMESTAMP.equals(name)
+            && !ResponseUtil.LAMBDA_STATUS_CODE.equals(name)
+            && !Idempotency.REPLAYED_HEADER.equals(name);
+    }
+}
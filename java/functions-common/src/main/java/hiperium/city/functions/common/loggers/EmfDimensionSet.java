@@ -0,0 +1,77 @@
+package hiperium.city.functions.common.loggers;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The EmfDimensionSet class represents the dimensions attached to the metrics of an Embedded Metric Format
+ * document. Dimension names and values are JSON-encoded once, when the set is created, so flushing a
+ * document only copies the pre-encoded fragments.
+ */
+public final class EmfDimensionSet {
+
+    /**
+     * Maximum number of dimensions allowed by CloudWatch in a single dimension set.
+     */
+    public static final int MAX_DIMENSIONS = 30;
+
+    private final Map<String, String> dimensions;
+    private final String encodedNames;
+    private final String encodedValues;
+
+    private EmfDimensionSet(Map<String, String> dimensions) {
+        this.dimensions = dimensions;
+        StringBuilder names = new StringBuilder("[");
+        StringBuilder values = new StringBuilder();
+        for (Map.Entry<String, String> dimension : dimensions.entrySet()) {
+            String name = quote(dimension.getKey());
+            if (names.length() > 1) {
+                names.append(',');
+                values.append(',');
+            }
+            names.append(name);
+            values.append(name).append(':').append(quote(dimension.getValue()));
+        }
+        this.encodedNames = names.append(']').toString();
+        this.encodedValues = values.toString();
+    }
+
+    /**
+     * Creates a dimension set from the given dimension names and values, keeping their iteration order.
+     *
+     * @param dimensions The dimension names and their values.
+     * @return A new {@code EmfDimensionSet} with the pre-encoded dimensions.
+     * @throws IllegalArgumentException If the map is empty or exceeds {@value #MAX_DIMENSIONS} dimensions.
+     */
+    public static EmfDimensionSet of(final Map<String, String> dimensions) {
+        if (dimensions.isEmpty() || dimensions.size() > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("A dimension set must have between 1 and "
+                + MAX_DIMENSIONS + " dimensions.");
+        }
+        return new EmfDimensionSet(new LinkedHashMap<>(dimensions));
+    }
+
+    /**
+     * Retrieves the dimensions of this set.
+     *
+     * @return An unmodifiable view of the dimension names and values.
+     */
+    public Map<String, String> getDimensions() {
+        return Collections.unmodifiableMap(this.dimensions);
+    }
+
+    String encodedNames() {
+        return this.encodedNames;
+    }
+
+    String encodedValues() {
+        return this.encodedValues;
+    }
+
+    static String quote(final String value) {
+        return '"' + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + '"';
+    }
+}
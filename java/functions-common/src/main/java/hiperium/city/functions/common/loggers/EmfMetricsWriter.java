@@ -0,0 +1,263 @@
+package hiperium.city.functions.common.loggers;
+
+import hiperium.city.functions.common.metrics.LatencyHistogram;
+import hiperium.city.functions.common.metrics.MetricCounter;
+import hiperium.city.functions.common.metrics.MetricTimer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The EmfMetricsWriter class aggregates counters and distributions in memory and writes them to the logs
+ * as a single, compact CloudWatch Embedded Metric Format (EMF) document.
+ * <p>
+ * Metrics are registered once by name and then updated without locks or allocations, so counting
+ * high-frequency events costs about as much as incrementing a {@link java.util.concurrent.atomic.LongAdder}.
+ * The writer is flushed at the end of each invocation with {@link #flush()}, or through {@link #flushIfDue()}
+ * when a flush interval is configured for long-lived containers. Memory is bounded: at most
+ * {@value #MAX_METRICS} metrics can be registered, which is also the limit CloudWatch accepts per document.
+ */
+public final class EmfMetricsWriter {
+
+    /**
+     * Maximum number of metrics that can be registered in a writer.
+     */
+    public static final int MAX_METRICS = 100;
+
+    /**
+     * Maximum number of distinct values written for a distribution, as accepted by CloudWatch.
+     */
+    public static final int MAX_DISTRIBUTION_VALUES = 100;
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(EmfMetricsWriter.class);
+    private static final String COUNT_UNIT = "Count";
+
+    private final String namespace;
+    private final EmfDimensionSet dimensionSet;
+    private final long flushIntervalMillis;
+    private final Map<String, Object> metrics = new ConcurrentHashMap<>();
+    private final AtomicInteger registeredMetrics = new AtomicInteger();
+    private final AtomicLong lastFlushMillis = new AtomicLong(System.currentTimeMillis());
+    private final MetricCounter overflowCounter = new MetricCounter("Overflow");
+    private final MetricTimer overflowTimer = new MetricTimer("Overflow");
+    private final AtomicBoolean overflowLogged = new AtomicBoolean();
+
+    /**
+     * Constructs a new EmfMetricsWriter that is flushed explicitly at the end of each invocation.
+     *
+     * @param namespace    The CloudWatch namespace of the metrics.
+     * @param dimensionSet The dimensions attached to every metric of the writer.
+     */
+    public EmfMetricsWriter(String namespace, EmfDimensionSet dimensionSet) {
+        this(namespace, dimensionSet, Duration.ZERO);
+    }
+
+    /**
+     * Constructs a new EmfMetricsWriter that aggregates metrics across a time window.
+     *
+     * @param namespace     The CloudWatch namespace of the metrics.
+     * @param dimensionSet  The dimensions attached to every metric of the writer.
+     * @param flushInterval The minimum time between two flushes performed by {@link #flushIfDue()}.
+     */
+    public EmfMetricsWriter(String namespace, EmfDimensionSet dimensionSet, Duration flushInterval) {
+        this.namespace = namespace;
+        this.dimensionSet = dimensionSet;
+        this.flushIntervalMillis = flushInterval.toMillis();
+    }
+
+    /**
+     * Retrieves the counter registered with the given name, registering it on first use.
+     * When the writer is full, a detached counter is returned whose values are never written,
+     * and only the first discarded metric of the writer is logged.
+     *
+     * @param name The metric name of the counter.
+     * @return The {@link MetricCounter} registered with the given name.
+     * @throws IllegalArgumentException If the name is already registered as a timer.
+     */
+    public MetricCounter counter(final String name) {
+        Object metric = this.register(name, MetricCounter::new);
+        if (Objects.isNull(metric)) {
+            return this.overflowCounter;
+        } else if (metric instanceof MetricCounter counter) {
+            return counter;
+        }
+        throw new IllegalArgumentException("Metric " + name + " is already registered as a timer.");
+    }
+
+    /**
+     * Retrieves the timer registered with the given name, registering it on first use.
+     * When the writer is full, a detached timer is returned whose values are never written,
+     * and only the first discarded metric of the writer is logged.
+     *
+     * @param name The metric name of the timer.
+     * @return The {@link MetricTimer} registered with the given name.
+     * @throws IllegalArgumentException If the name is already registered as a counter.
+     */
+    public MetricTimer timer(final String name) {
+        Object metric = this.register(name, MetricTimer::new);
+        if (Objects.isNull(metric)) {
+            return this.overflowTimer;
+        } else if (metric instanceof MetricTimer timer) {
+            return timer;
+        }
+        throw new IllegalArgumentException("Metric " + name + " is already registered as a counter.");
+    }
+
+    /**
+     * Increments by one the counter registered with the given name.
+     *
+     * @param name The metric name of the counter.
+     */
+    public void count(final String name) {
+        this.counter(name).increment();
+    }
+
+    /**
+     * Increments by the given amount the counter registered with the given name.
+     *
+     * @param name   The metric name of the counter.
+     * @param amount The amount to add to the counter.
+     */
+    public void count(final String name, long amount) {
+        this.counter(name).add(amount);
+    }
+
+    /**
+     * Writes the metrics aggregated since the last flush as a single EMF document and resets them.
+     * Nothing is written when no metric was updated.
+     */
+    public void flush() {
+        long now = System.currentTimeMillis();
+        this.lastFlushMillis.set(now);
+        String document = this.renderThenReset(now);
+        if (Objects.nonNull(document)) {
+            LOGGER.metrics(document);
+        }
+    }
+
+    /**
+     * Flushes the writer only if the configured flush interval has elapsed since the last flush.
+     * Concurrent callers never flush the same window twice.
+     */
+    public void flushIfDue() {
+        long now = System.currentTimeMillis();
+        long lastFlush = this.lastFlushMillis.get();
+        if (now - lastFlush >= this.flushIntervalMillis && this.lastFlushMillis.compareAndSet(lastFlush, now)) {
+            String document = this.renderThenReset(now);
+            if (Objects.nonNull(document)) {
+                LOGGER.metrics(document);
+            }
+        }
+    }
+
+    /**
+     * Discards the metrics aggregated since the last flush without writing them.
+     */
+    public void reset() {
+        this.renderThenReset(0L);
+    }
+
+    String renderThenReset(final long timestamp) {
+        List<String> names = new ArrayList<>();
+        List<String> units = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : this.metrics.entrySet()) {
+            if (entry.getValue() instanceof MetricCounter counter) {
+                long count = counter.countThenReset();
+                if (count > 0L) {
+                    names.add(EmfDimensionSet.quote(entry.getKey()));
+                    units.add(COUNT_UNIT);
+                    values.add(count);
+                }
+            } else if (entry.getValue() instanceof MetricTimer timer) {
+                LatencyHistogram.Snapshot snapshot = timer.snapshotThenReset();
+                if (!snapshot.isEmpty()) {
+                    names.add(EmfDimensionSet.quote(entry.getKey()));
+                    units.add(MetricTimer.UNIT);
+                    values.add(snapshot);
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder document = new StringBuilder(256 + names.size() * 64)
+            .append("{\"_aws\":{\"Timestamp\":").append(timestamp)
+            .append(",\"CloudWatchMetrics\":[{\"Namespace\":").append(EmfDimensionSet.quote(this.namespace))
+            .append(",\"Dimensions\":[").append(this.dimensionSet.encodedNames())
+            .append("],\"Metrics\":[");
+        for (int index = 0; index < names.size(); index++) {
+            document.append(index == 0 ? "" : ",")
+                .append("{\"Name\":").append(names.get(index))
+                .append(",\"Unit\":\"").append(units.get(index)).append("\"}");
+        }
+        document.append("]}]},").append(this.dimensionSet.encodedValues());
+        for (int index = 0; index < names.size(); index++) {
+            document.append(',').append(names.get(index)).append(':');
+            if (values.get(index) instanceof LatencyHistogram.Snapshot snapshot) {
+                appendDistribution(document, snapshot);
+            } else {
+                document.append(values.get(index));
+            }
+        }
+        return document.append('}').toString();
+    }
+
+    private Object register(final String name, final Function<String, Object> factory) {
+        Object metric = this.metrics.get(name);
+        if (Objects.nonNull(metric)) {
+            return metric;
+        }
+        return this.metrics.computeIfAbsent(name, key -> {
+            if (this.registeredMetrics.incrementAndGet() > MAX_METRICS) {
+                this.registeredMetrics.decrementAndGet();
+                if (this.overflowLogged.compareAndSet(false, true)) {
+                    LOGGER.warn("Metric {} discarded, the writer already holds {} metrics. "
+                        + "Further discarded metrics won't be logged.", key, MAX_METRICS);
+                }
+                return null;
+            }
+            return factory.apply(key);
+        });
+    }
+
+    private static void appendDistribution(final StringBuilder document, final LatencyHistogram.Snapshot snapshot) {
+        long[] values = snapshot.values();
+        long[] counts = snapshot.counts();
+        int groupSize = (values.length + MAX_DISTRIBUTION_VALUES - 1) / MAX_DISTRIBUTION_VALUES;
+
+        StringBuilder valuesArray = new StringBuilder("[");
+        StringBuilder countsArray = new StringBuilder("[");
+        for (int start = 0; start < values.length; start += groupSize) {
+            int end = Math.min(start + groupSize, values.length);
+            long groupCount = 0L;
+            double weightedSum = 0.0;
+            for (int index = start; index < end; index++) {
+                groupCount += counts[index];
+                weightedSum += (double) values[index] * counts[index];
+            }
+            if (start > 0) {
+                valuesArray.append(',');
+                countsArray.append(',');
+            }
+            valuesArray.append(Math.round(weightedSum / groupCount));
+            countsArray.append(groupCount);
+        }
+        document.append("{\"Values\":").append(valuesArray).append(']')
+            .append(",\"Counts\":").append(countsArray).append(']')
+            .append(",\"Max\":").append(snapshot.max())
+            .append(",\"Min\":").append(snapshot.min())
+            .append(",\"Count\":").append(snapshot.count())
+            .append(",\"Sum\":").append(snapshot.sum())
+            .append('}');
+    }
+}
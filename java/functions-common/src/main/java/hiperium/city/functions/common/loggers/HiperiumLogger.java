@@ -2,6 +2,8 @@ package hiperium.city.functions.common.loggers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
 
 /**
  * The HiperiumLogger class is a logger utility that provides methods to log debug and informational messages.
@@ -9,6 +11,12 @@ import org.slf4j.LoggerFactory;
  */
 public class HiperiumLogger {
 
+    /**
+     * Marker attached to the log events whose message is a CloudWatch Embedded Metric Format document.
+     * The {@link HiperiumLoggerLayout} writes these messages as they are, without the usual log envelope.
+     */
+    public static final Marker EMF_MARKER = MarkerFactory.getMarker("EMF");
+
     private final Logger logger;
 
     /**
@@ -82,4 +90,16 @@ public class HiperiumLogger {
             this.logger.error(message, throwable);
         }
     }
+
+    /**
+     * Logs a CloudWatch Embedded Metric Format document at info level, if info level logging is enabled.
+     * The document is written as a single log line so CloudWatch can extract the metrics it contains.
+     *
+     * @param document The EMF JSON document to log.
+     */
+    public void metrics(String document) {
+        if (this.logger.isInfoEnabled()) {
+            this.logger.info(EMF_MARKER, document);
+        }
+    }
 }
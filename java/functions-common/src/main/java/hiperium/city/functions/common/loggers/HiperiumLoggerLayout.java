@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import hiperium.city.functions.common.utils.DateTimeUtil;
+import org.slf4j.Marker;
 
 import java.time.DateTimeException;
 import java.time.Instant;
@@ -14,6 +15,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -64,6 +66,9 @@ public class HiperiumLoggerLayout extends LayoutBase<ILoggingEvent> {
      */
     @Override
     public String doLayout(ILoggingEvent event) {
+        if (this.isEmbeddedMetricFormat(event)) {
+            return event.getFormattedMessage() + LINE_BREAK;   // EMF documents are written as they are.
+        }
         LinkedHashMap<String, Object> logData = this.getMapFromPool();
 
         logData.clear(); // Make sure the map is empty before use
@@ -87,6 +92,11 @@ public class HiperiumLoggerLayout extends LayoutBase<ILoggingEvent> {
         }
     }
 
+    private boolean isEmbeddedMetricFormat(final ILoggingEvent event) {
+        List<Marker> markers = event.getMarkerList();
+        return Objects.nonNull(markers) && markers.contains(HiperiumLogger.EMF_MARKER);
+    }
+
     private void initializeZoneId(final String timezone) {
         if (Objects.isNull(timezone) || timezone.isBlank()) {
             this.zoneId = ZoneId.of(ZoneId.systemDefault().getId());
@@ -0,0 +1,105 @@
+package hiperium.city.functions.common.metrics;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.loggers.EmfDimensionSet;
+import hiperium.city.functions.common.loggers.EmfMetricsWriter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The FunctionsMetrics class holds the metrics recorded by the functions-common request pipeline.
+ * It doesn't depend on any metrics library: values are aggregated in memory by an {@link EmfMetricsWriter}
+ * and exported as a CloudWatch Embedded Metric Format (EMF) document written to the logs,
+ * so publishing metrics never requires a network call from the function.
+ */
+public final class FunctionsMetrics {
+
+    /**
+     * System property used to override the CloudWatch namespace of the exported metrics.
+     */
+    public static final String NAMESPACE_PROPERTY = "hiperium.metrics.namespace";
+
+    private static final String DEFAULT_NAMESPACE = "HiperiumCity";
+    private static final String FUNCTION_NAME_DIMENSION = "FunctionName";
+    private static final String FUNCTION_NAME = Objects.requireNonNullElse(
+        System.getenv("AWS_LAMBDA_FUNCTION_NAME"), "local");
+
+    private static final EmfMetricsWriter WRITER = new EmfMetricsWriter(
+        System.getProperty(NAMESPACE_PROPERTY, DEFAULT_NAMESPACE),
+        EmfDimensionSet.of(Map.of(FUNCTION_NAME_DIMENSION, FUNCTION_NAME)));
+
+    /**
+     * Time spent deserializing incoming requests and request bodies.
+     */
+    public static final MetricTimer DESERIALIZATION = WRITER.timer("DeserializationTime");
+
+    /**
+     * Time spent validating request objects with the bean validator.
+     */
+    public static final MetricTimer VALIDATION = WRITER.timer("ValidationTime");
+
+    /**
+     * Time spent serializing success and error responses.
+     */
+    public static final MetricTimer SERIALIZATION = WRITER.timer("SerializationTime");
+
+    private static final Map<ErrorCode, MetricCounter> ERRORS = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            ERRORS.put(errorCode, WRITER.counter("Errors." + errorCode.name()));
+        }
+    }
+
+    private FunctionsMetrics() {
+        throw new UnsupportedOperationException("Utility classes should not be instantiated.");
+    }
+
+    /**
+     * Increments the error counter associated with the given error code.
+     *
+     * @param errorCode The error code of the failure to be counted.
+     */
+    public static void recordError(final ErrorCode errorCode) {
+        ERRORS.get(errorCode).increment();
+    }
+
+    /**
+     * Retrieves the error counter associated with the given error code.
+     *
+     * @param errorCode The error code whose counter is requested.
+     * @return The {@link MetricCounter} counting the failures with the given error code.
+     */
+    public static MetricCounter errors(final ErrorCode errorCode) {
+        return ERRORS.get(errorCode);
+    }
+
+    /**
+     * Retrieves the writer aggregating the pipeline metrics. Functions can register their own
+     * counters and timers in it, so they are published in the same EMF document.
+     *
+     * @return The {@link EmfMetricsWriter} shared by the functions-common pipeline.
+     */
+    public static EmfMetricsWriter writer() {
+        return WRITER;
+    }
+
+    /**
+     * Writes the metrics recorded since the last publication as a single EMF document to the logs,
+     * and resets them. Nothing is written when no metric was recorded.
+     * It's meant to be called at the end of each invocation.
+     */
+    public static void publish() {
+        WRITER.flush();
+    }
+
+    /**
+     * Discards the metrics recorded since the last publication, e.g., the ones recorded while
+     * priming the pipeline before a snapshot.
+     */
+    public static void reset() {
+        WRITER.reset();
+    }
+}
@@ -0,0 +1,142 @@
+package hiperium.city.functions.common.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class records non-negative values into HDR-style log-linear buckets.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so the relative error of a
+ * recorded value is bounded to about 6% while the whole range up to {@code 2^40} fits in a few hundred
+ * counters. Recording is lock-free and allocation-free, which makes it safe to use in the request hot path.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40;
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Constructs a new, empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        super();
+    }
+
+    /**
+     * Records a single value in the histogram. Negative values are recorded as zero.
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        long sanitizedValue = Math.max(0L, value);
+        this.buckets.incrementAndGet(bucketIndex(sanitizedValue));
+        this.count.increment();
+        this.sum.add(sanitizedValue);
+        this.min.accumulateAndGet(sanitizedValue, Math::min);
+        this.max.accumulateAndGet(sanitizedValue, Math::max);
+    }
+
+    /**
+     * Takes a snapshot of the recorded values and resets the histogram, so the next snapshot
+     * only contains the values recorded after this call.
+     *
+     * @return A {@link Snapshot} with the non-empty buckets and the summary statistics.
+     */
+    public Snapshot snapshotThenReset() {
+        long[] values = new long[BUCKETS];
+        long[] counts = new long[BUCKETS];
+        int size = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            long bucketCount = this.buckets.getAndSet(index, 0L);
+            if (bucketCount > 0L) {
+                values[size] = bucketValue(index);
+                counts[size] = bucketCount;
+                size++;
+            }
+        }
+        return new Snapshot(
+            Arrays.copyOf(values, size),
+            Arrays.copyOf(counts, size),
+            this.count.sumThenReset(),
+            this.sum.sumThenReset(),
+            this.min.getAndSet(Long.MAX_VALUE),
+            this.max.getAndSet(Long.MIN_VALUE));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_MAGNITUDE);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        long subBucket = Math.min(value >>> shift, (SUB_BUCKETS << 1) - 1L);
+        return shift * SUB_BUCKETS + (int) subBucket;
+    }
+
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+
+    /**
+     * Represents the content of a histogram at a point in time.
+     *
+     * @param values The representative value of every non-empty bucket, in ascending order.
+     * @param counts The number of recorded values of every non-empty bucket.
+     * @param count  The total number of recorded values.
+     * @param sum    The sum of all recorded values.
+     * @param min    The minimum recorded value, or {@code Long.MAX_VALUE} when the snapshot is empty.
+     * @param max    The maximum recorded value, or {@code Long.MIN_VALUE} when the snapshot is empty.
+     */
+    public record Snapshot(
+        long[] values,
+        long[] counts,
+        long count,
+        long sum,
+        long min,
+        long max
+    ) {
+
+        /**
+         * Indicates whether the snapshot contains any recorded value.
+         *
+         * @return {@code true} if no values were recorded, otherwise {@code false}.
+         */
+        public boolean isEmpty() {
+            return this.count == 0L;
+        }
+
+        /**
+         * Estimates the value at the given percentile from the bucket counts.
+         *
+         * @param percentile The percentile to estimate, between 0 and 100.
+         * @return The representative value of the bucket holding the percentile, or zero for an empty snapshot.
+         */
+        public long percentile(double percentile) {
+            long bucketsTotal = Arrays.stream(this.counts).sum();
+            long rank = (long) Math.ceil(bucketsTotal * Math.clamp(percentile, 0.0, 100.0) / 100.0);
+            long accumulated = 0L;
+            for (int index = 0; index < this.values.length; index++) {
+                accumulated += this.counts[index];
+                if (accumulated >= rank) {
+                    return this.values[index];
+                }
+            }
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package hiperium.city.functions.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The MetricCounter class is a monotonic counter backed by a striped {@link LongAdder},
+ * so concurrent increments from many threads never contend on a single memory location.
+ */
+public final class MetricCounter {
+
+    private final String name;
+    private final LongAdder adder = new LongAdder();
+
+    /**
+     * Constructs a new MetricCounter with the specified metric name.
+     *
+     * @param name The name used when the counter is exported.
+     */
+    public MetricCounter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        this.adder.increment();
+    }
+
+    /**
+     * Increments the counter by the given amount.
+     *
+     * @param amount The amount to add to the counter.
+     */
+    public void add(long amount) {
+        this.adder.add(amount);
+    }
+
+    /**
+     * Retrieves the current value of the counter.
+     *
+     * @return The sum of all increments since the last reset.
+     */
+    public long count() {
+        return this.adder.sum();
+    }
+
+    /**
+     * Retrieves the current value of the counter and resets it to zero.
+     * Increments happening concurrently with this call may be counted in the next period.
+     *
+     * @return The sum of all increments since the last reset.
+     */
+    public long countThenReset() {
+        return this.adder.sumThenReset();
+    }
+
+    /**
+     * Retrieves the name of the counter.
+     *
+     * @return The metric name as a {@code String}.
+     */
+    public String getName() {
+        return name;
+    }
+}
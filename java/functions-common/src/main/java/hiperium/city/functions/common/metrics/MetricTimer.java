@@ -0,0 +1,70 @@
+package hiperium.city.functions.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MetricTimer class records durations, in microseconds, into a {@link LatencyHistogram}.
+ * <p>
+ * Timers are meant to be used with {@link System#nanoTime()} captured by the caller, so timing a stage
+ * doesn't allocate any object:
+ * <pre>{@code
+ * long start = System.nanoTime();
+ * // ... timed stage ...
+ * FunctionsMetrics.DESERIALIZATION.recordSince(start);
+ * }</pre>
+ */
+public final class MetricTimer {
+
+    /**
+     * The unit used when the timer values are exported.
+     */
+    public static final String UNIT = "Microseconds";
+
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Constructs a new MetricTimer with the specified metric name.
+     *
+     * @param name The name used when the timer is exported.
+     */
+    public MetricTimer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} value.
+     *
+     * @param startNanos The value returned by {@link System#nanoTime()} when the timed stage started.
+     */
+    public void recordSince(long startNanos) {
+        this.recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a duration expressed in nanoseconds.
+     *
+     * @param nanos The duration to record, in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+        this.histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Takes a snapshot of the recorded durations, in microseconds, and resets the timer.
+     *
+     * @return A {@link LatencyHistogram.Snapshot} of the durations recorded since the last reset.
+     */
+    public LatencyHistogram.Snapshot snapshotThenReset() {
+        return this.histogram.snapshotThenReset();
+    }
+
+    /**
+     * Retrieves the name of the timer.
+     *
+     * @return The metric name as a {@code String}.
+     */
+    public String getName() {
+        return name;
+    }
+}
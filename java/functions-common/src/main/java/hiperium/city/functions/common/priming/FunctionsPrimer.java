@@ -0,0 +1,127 @@
+package hiperium.city.functions.common.priming;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.requests.CityIdRequest;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.DeserializerUtil;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import hiperium.city.functions.common.utils.ValidatorUtil;
+import jakarta.validation.Validator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * The FunctionsPrimer class exercises the request and response pipeline of the functions-common library,
+ * so the involved classes are loaded, linked and JIT-compiled before a snapshot or a CDS archive is taken.
+ * <p>
+ * Priming goes through the same code paths used by a real invocation: the shared {@code ObjectMapper},
+ * the {@link DeserializerUtil} methods, the bean validator and the {@link ResponseUtil} success and
+ * error builders for every {@link ErrorCode}.
+ */
+public final class FunctionsPrimer {
+
+    /**
+     * System property holding the directory of recorded API Gateway request fixtures used for priming.
+     * When present, every non-empty {@code .json} file inside the directory is replayed through the pipeline.
+     */
+    public static final String FIXTURES_PROPERTY = "hiperium.priming.fixtures";
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(FunctionsPrimer.class);
+
+    private static final String PRIMING_REQUEST_ID = "priming";
+    private static final String PRIMING_REQUEST_JSON = """
+        {
+          "headers": {
+            "city-function": "priming"
+          },
+          "requestContext": {
+            "accountId": "000000000000",
+            "apiId": "priming",
+            "http": {
+              "path": "/priming",
+              "protocol": "HTTP/1.1",
+              "sourceIp": "127.0.0.1",
+              "userAgent": "priming"
+            },
+            "requestId": "priming",
+            "routeKey": "$default",
+            "stage": "$default",
+            "time": "01/Jan/2025:00:00:00 +0000"
+          },
+          "body": "{\\"cityId\\":\\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\\"}"
+        }
+        """;
+
+    private FunctionsPrimer() {
+        throw new UnsupportedOperationException("Utility classes should not be instantiated.");
+    }
+
+    /**
+     * Primes the pipeline with the built-in sample request and the fixtures found in the directory
+     * configured by the {@value #FIXTURES_PROPERTY} system property, if any.
+     *
+     * @param validator The bean validator used by the function. It can be null to skip validation priming.
+     */
+    public static void prime(final Validator validator) {
+        prime(validator, loadFixtures(System.getProperty(FIXTURES_PROPERTY)));
+    }
+
+    /**
+     * Primes the pipeline with the built-in sample request and the given request fixtures.
+     * Failures are logged and never propagated, so priming can't prevent a function from starting.
+     *
+     * @param validator       The bean validator used by the function. It can be null to skip validation priming.
+     * @param requestFixtures The raw JSON of API Gateway requests to replay through the pipeline.
+     */
+    public static void prime(final Validator validator, final List<String> requestFixtures) {
+        primeRequest(validator, PRIMING_REQUEST_JSON);
+        requestFixtures.forEach(fixture -> primeRequest(validator, fixture));
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            ResponseUtil.error(new CityException(errorCode.getDescription(), errorCode, PRIMING_REQUEST_ID));
+        }
+        FunctionsMetrics.reset();   // Priming must not be reported as real traffic.
+        LOGGER.debug("Functions pipeline primed with {} request fixtures.", requestFixtures.size() + 1);
+    }
+
+    private static void primeRequest(final Validator validator, final String requestJson) {
+        try {
+            FunctionRequest functionRequest = DeserializerUtil.fromJson(requestJson);
+            CityIdRequest cityIdRequest = DeserializerUtil.deserializeCityId(functionRequest);
+            if (Objects.nonNull(validator)) {
+                ValidatorUtil.validate(validator, cityIdRequest, functionRequest.requestContext().requestId());
+            }
+            ResponseUtil.success(cityIdRequest);
+        } catch (CityException exception) {
+            ResponseUtil.error(exception);
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Couldn't prime the functions pipeline with a request fixture: {}", exception.getMessage());
+        }
+    }
+
+    private static List<String> loadFixtures(final String fixturesDirectory) {
+        List<String> fixtures = new ArrayList<>();
+        if (Objects.isNull(fixturesDirectory) || fixturesDirectory.isBlank()) {
+            return fixtures;
+        }
+        try (Stream<Path> paths = Files.list(Path.of(fixturesDirectory))) {
+            for (Path path : paths.filter(file -> file.toString().endsWith(".json")).sorted().toList()) {
+                String fixture = Files.readString(path);
+                if (!fixture.isBlank()) {
+                    fixtures.add(fixture);
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Couldn't read priming fixtures from {}: {}", fixturesDirectory, exception.getMessage());
+        }
+        return fixtures;
+    }
+}
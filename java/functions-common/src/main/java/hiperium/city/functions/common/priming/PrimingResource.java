@@ -0,0 +1,63 @@
+package hiperium.city.functions.common.priming;
+
+import jakarta.validation.Validator;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+
+import java.util.Objects;
+
+/**
+ * The PrimingResource class is a CRaC resource that primes the functions pipeline right before
+ * a checkpoint is taken, as Lambda SnapStart does, so restored instances start with warm caches.
+ * <p>
+ * CRaC contexts keep weak references to their resources, so the instance returned by
+ * {@link #register(Validator)} must be kept reachable (e.g., as a Spring bean) to receive notifications.
+ */
+public final class PrimingResource implements Resource {
+
+    private final Validator validator;
+
+    /**
+     * Constructs a new PrimingResource with the bean validator to be primed.
+     *
+     * @param validator The bean validator used by the function. It can be null to skip validation priming.
+     */
+    public PrimingResource(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Creates a PrimingResource and registers it in the global CRaC context.
+     * When the {@value FunctionsPrimer#FIXTURES_PROPERTY} system property is present, as it is during
+     * the AppCDS training run, the pipeline is also primed immediately so the exercised classes
+     * are recorded in the archive.
+     *
+     * @param validator The bean validator used by the function. It can be null to skip validation priming.
+     * @return The registered resource, which must be kept strongly referenced by the caller.
+     */
+    public static PrimingResource register(final Validator validator) {
+        PrimingResource primingResource = new PrimingResource(validator);
+        Core.getGlobalContext().register(primingResource);
+        if (Objects.nonNull(System.getProperty(FunctionsPrimer.FIXTURES_PROPERTY))) {
+            FunctionsPrimer.prime(validator);
+        }
+        return primingResource;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        FunctionsPrimer.prime(this.validator);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        // Nothing to restore, primed state lives in the JVM heap and the JIT caches.
+    }
+}
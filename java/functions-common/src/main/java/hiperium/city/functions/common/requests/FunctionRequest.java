@@ -1,6 +1,11 @@
 package hiperium.city.functions.common.requests;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 /**
  * Represents a request sent through AWS API Gateway.
@@ -10,13 +15,77 @@ import java.util.Map;
  * @param requestContext The context of the request, providing metadata such as account ID,
  *                       route key, stage, request ID, and additional HTTP information.
  * @param body           The raw body of the incoming API Gateway request.
+ * @param base64Encoded  Whether the body is Base64-encoded binary data, as API Gateway delivers binary and
+ *                       compressed uploads.
  */
 public record FunctionRequest(
     Map<String, String> headers,
     RequestContext requestContext,
-    String body
+    String body,
+    @JsonProperty("isBase64Encoded") boolean base64Encoded
 ) {
 
+    /**
+     * Constructs a FunctionRequest whose body isn't Base64-encoded.
+     *
+     * @param headers        A map of HTTP headers included in the request.
+     * @param requestContext The context of the request.
+     * @param body           The raw body of the request.
+     */
+    public FunctionRequest(Map<String, String> headers, RequestContext requestContext, String body) {
+        this(headers, requestContext, body, false);
+    }
+
+    /**
+     * Retrieves the value of the given HTTP header, ignoring the case of the header name.
+     * API Gateway HTTP APIs deliver header names in lowercase, so the lookup tries that form first.
+     *
+     * @param name The name of the HTTP header.
+     * @return The header value, or {@code null} if the request doesn't include the header.
+     */
+    public String header(final String name) {
+        if (Objects.isNull(this.headers)) {
+            return null;
+        }
+        String value = this.headers.get(name.toLowerCase(Locale.ROOT));
+        if (Objects.nonNull(value)) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : this.headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifies whether the client already holds the representation identified by the given entity tag, i.e.,
+     * whether the tag is listed in the {@code If-None-Match} header of the request. Weak tags match their strong
+     * form, as the header uses the weak comparison.
+     *
+     * @param etag The entity tag of the current representation, quoted, such as {@code "5d41402a"}.
+     * @return {@code true} if the response can be a {@code 304 Not Modified} without a body.
+     */
+    public boolean matchesETag(final String etag) {
+        String ifNoneMatch = this.header("If-None-Match");
+        if (Objects.isNull(ifNoneMatch) || Objects.isNull(etag)) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag) || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(final String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
     /**
      * Represents the context of a request sent through an API Gateway.
      * This record contains metadata related to the request, such as account ID,
@@ -29,6 +98,8 @@ public record FunctionRequest(
      * @param routeKey The route key that identifies the integration configuration.
      * @param stage The stage of the API Gateway where the request was routed.
      * @param time The timestamp when the request was received, as a formatted string.
+     * @param authorizer The output of the route authorizer, holding the {@code jwt}, {@code iam} or
+     *                   {@code lambda} identity of the caller, or {@code null} for unauthenticated routes.
      */
     public record RequestContext(
         String accountId,
@@ -37,9 +108,49 @@ public record FunctionRequest(
         String requestId,
         String routeKey,
         String stage,
-        String time
+        String time,
+        Map<String, Object> authorizer
     ) {
 
+        /**
+         * Constructs a RequestContext of a route without authorizer.
+         *
+         * @param accountId The AWS account ID associated with the request.
+         * @param apiId The identifier of the API in which the request was made.
+         * @param http HTTP-related metadata about the request.
+         * @param requestId A unique identifier for the specific request.
+         * @param routeKey The route key that identifies the integration configuration.
+         * @param stage The stage of the API Gateway where the request was routed.
+         * @param time The timestamp when the request was received, as a formatted string.
+         */
+        public RequestContext(String accountId, String apiId, Http http, String requestId,
+                              String routeKey, String stage, String time) {
+            this(accountId, apiId, http, requestId, routeKey, stage, time, null);
+        }
+
+        /**
+         * Retrieves a stable identity of the caller from the authorizer output: the {@code sub} claim of a JWT,
+         * the user ARN of an IAM caller, or the context returned by a Lambda authorizer. Token-specific values,
+         * such as the expiration claims, are left out, so the identity doesn't change when a token is refreshed.
+         *
+         * @return The caller identity, or {@code null} if the route has no authorizer.
+         */
+        public String principal() {
+            if (Objects.isNull(this.authorizer)) {
+                return null;
+            }
+            if (this.authorizer.get("jwt") instanceof Map<?, ?> jwt && jwt.get("claims") instanceof Map<?, ?> claims) {
+                return "jwt:" + claims.get("iss") + '#' + claims.get("sub");
+            }
+            if (this.authorizer.get("iam") instanceof Map<?, ?> iam) {
+                return "iam:" + iam.get("userArn");
+            }
+            if (this.authorizer.get("lambda") instanceof Map<?, ?> lambda) {
+                return "lambda:" + new TreeMap<>(lambda);
+            }
+            return null;
+        }
+
         /**
          * This record provides information about the HTTP request context, such as
          * the request path, protocol, and identifying details about the source of the
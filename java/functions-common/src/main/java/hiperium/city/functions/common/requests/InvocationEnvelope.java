@@ -0,0 +1,105 @@
+package hiperium.city.functions.common.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The InvocationEnvelope record is the internal format used when a city function invokes another one,
+ * instead of the API Gateway event. The body is a JSON object nested in the envelope, not a JSON string
+ * inside a JSON document, so it's parsed in a single pass directly into its type:
+ * <pre>{@code
+ * {"format":"hiperium.invocation","requestId":"...","routingKey":"city-status","body":{"cityId":"..."}}
+ * }</pre>
+ * Messages carrying an envelope are identified by the {@value #CONTENT_TYPE} content type, or, when the message
+ * has no headers, as with a direct Lambda invocation, by the {@value #FORMAT} discriminator written as the first
+ * property of the envelope.
+ *
+ * @param requestId  The request ID of the original request, propagated across functions.
+ * @param routingKey The name of the target function, also sent in the routing header.
+ * @param body       The typed body of the invocation.
+ * @param <T>        The type of the body.
+ */
+@JsonPropertyOrder({InvocationEnvelope.FORMAT_PROPERTY, "requestId", "routingKey", "body"})
+public record InvocationEnvelope<T>(
+    String requestId,
+    String routingKey,
+    T body
+) {
+
+    /**
+     * The content type of the messages carrying an invocation envelope.
+     */
+    public static final String CONTENT_TYPE = "application/vnd.hiperium.invocation+json";
+
+    /**
+     * The name of the property holding the format discriminator of the envelope.
+     */
+    public static final String FORMAT_PROPERTY = "format";
+
+    /**
+     * The value of the format discriminator, which an API Gateway event never holds.
+     */
+    public static final String FORMAT = "hiperium.invocation";
+
+    private static final String FORMAT_PREFIX = '"' + FORMAT_PROPERTY + '"';
+    private static final String FORMAT_VALUE = '"' + FORMAT + '"';
+
+    /**
+     * Retrieves the format discriminator written with the envelope.
+     *
+     * @return Always {@value #FORMAT}.
+     */
+    @JsonProperty(value = FORMAT_PROPERTY, access = JsonProperty.Access.READ_ONLY)
+    public String format() {
+        return FORMAT;
+    }
+
+    /**
+     * Verifies whether the given content type designates an invocation envelope, ignoring its case
+     * and parameters such as the charset.
+     *
+     * @param contentType The content type of a message, possibly {@code null}.
+     * @return {@code true} if the message carries an invocation envelope.
+     */
+    public static boolean isEnvelope(final String contentType) {
+        return Objects.nonNull(contentType)
+            && contentType.trim().toLowerCase(Locale.ROOT).startsWith(CONTENT_TYPE);
+    }
+
+    /**
+     * Verifies whether the given JSON payload is an invocation envelope, i.e., whether its first property is the
+     * {@value #FORMAT_PROPERTY} discriminator with the {@value #FORMAT} value. Only the start of the payload is
+     * inspected, so the check doesn't depend on the payload size.
+     *
+     * @param payload The JSON payload of a message, possibly {@code null}.
+     * @return {@code true} if the payload starts as an invocation envelope.
+     */
+    public static boolean isEnvelopePayload(final String payload) {
+        if (Objects.isNull(payload)) {
+            return false;
+        }
+        int index = skipWhitespace(payload, 0);
+        if (index >= payload.length() || payload.charAt(index) != '{') {
+            return false;
+        }
+        index = skipWhitespace(payload, index + 1);
+        if (!payload.startsWith(FORMAT_PREFIX, index)) {
+            return false;
+        }
+        index = skipWhitespace(payload, index + FORMAT_PREFIX.length());
+        if (index >= payload.length() || payload.charAt(index) != ':') {
+            return false;
+        }
+        return payload.startsWith(FORMAT_VALUE, skipWhitespace(payload, index + 1));
+    }
+
+    private static int skipWhitespace(final String payload, int index) {
+        while (index < payload.length() && Character.isWhitespace(payload.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+}
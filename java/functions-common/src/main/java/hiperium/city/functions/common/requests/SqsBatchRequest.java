@@ -0,0 +1,35 @@
+package hiperium.city.functions.common.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a batch of messages delivered to a function by an Amazon SQS event source mapping.
+ *
+ * @param records The messages of the batch.
+ */
+public record SqsBatchRequest(
+    @JsonProperty("Records")
+    List<SqsMessage> records
+) {
+
+    /**
+     * Represents a single message of an Amazon SQS batch.
+     *
+     * @param messageId      The unique identifier of the message, reported back when its processing fails.
+     * @param receiptHandle  The handle used to delete the message from the queue.
+     * @param body           The raw body of the message.
+     * @param attributes     The system attributes of the message, such as {@code ApproximateReceiveCount}.
+     * @param eventSourceARN The ARN of the queue the message was received from.
+     */
+    public record SqsMessage(
+        String messageId,
+        String receiptHandle,
+        String body,
+        Map<String, String> attributes,
+        String eventSourceARN
+    ) {
+    }
+}
@@ -0,0 +1,24 @@
+package hiperium.city.functions.common.responses;
+
+import java.util.List;
+
+/**
+ * Represents the partial batch response returned to an Amazon SQS event source mapping configured with
+ * {@code ReportBatchItemFailures}. Only the listed messages return to the queue, the others are deleted.
+ *
+ * @param batchItemFailures The messages whose processing failed and must be retried.
+ */
+public record SqsBatchResponse(
+    List<BatchItemFailure> batchItemFailures
+) {
+
+    /**
+     * Identifies a message of the batch whose processing failed.
+     *
+     * @param itemIdentifier The message ID of the failed message.
+     */
+    public record BatchItemFailure(
+        String itemIdentifier
+    ) {
+    }
+}
@@ -0,0 +1,189 @@
+package hiperium.city.functions.common.routing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.ResourceNotFoundException;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
+import hiperium.city.functions.common.utils.DeserializerUtil;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The FunctionDispatcher class routes the requests of a multi-function deployment to their handler through a
+ * table built once at startup, instead of the generic routing of Spring Cloud Function, which resolves the
+ * target function on every call. It's registered as the single function of the deployment:
+ * <pre>{@code
+ * @Bean
+ * public Function<Message<String>, Message<String>> dispatcher(CityService cityService) {
+ *     return new FunctionDispatcher(List.of(
+ *         Route.of("city-status", CityIdRequest.class, CityStatusResponse.class,
+ *             (request, requestId) -> cityService.findStatus(request.cityId(), requestId))));
+ * }
+ * }</pre>
+ * The routing key is read from the {@value FunctionsUtil#ROUTING_PARAMETER} message header or, when it's missing,
+ * from the event header with the same name, or from the routing key of the envelope. Requests carrying an {@link InvocationEnvelope} are
+ * answered with an envelope, and API Gateway events with a plain JSON body. A {@link CityException} raised
+ * while dispatching becomes an error response.
+ */
+public final class FunctionDispatcher implements Function<Message<String>, Message<String>> {
+
+    private final Map<String, Route<?, ?>> routes;
+
+    /**
+     * Constructs a new FunctionDispatcher.
+     *
+     * @param routes The routes of the deployment.
+     * @throws IllegalArgumentException If two routes have the same routing key.
+     */
+    public FunctionDispatcher(List<Route<?, ?>> routes) {
+        Map<String, Route<?, ?>> table = HashMap.newHashMap(routes.size());
+        for (Route<?, ?> route : routes) {
+            if (Objects.nonNull(table.putIfAbsent(route.getRoutingKey(), route))) {
+                throw new IllegalArgumentException("Duplicate routing key: " + route.getRoutingKey());
+            }
+        }
+        this.routes = Map.copyOf(table);
+    }
+
+    /**
+     * Dispatches a request to the handler of its routing key.
+     *
+     * @param message The request message, carrying an API Gateway event or an {@link InvocationEnvelope}.
+     * @return The response of the handler, or an error response.
+     */
+    @Override
+    public Message<String> apply(final Message<String> message) {
+        try {
+            if (DeserializerUtil.isEnvelope(message)) {
+                String payload = DeserializerUtil.requireValidBody(message.getPayload(), null);
+                String routingKey = routingKey(message);
+                if (Objects.isNull(routingKey)) {
+                    routingKey = envelopeRoutingKey(payload);
+                }
+                return this.dispatchEnvelope(this.route(routingKey, null), payload);
+            }
+            FunctionRequest functionRequest = DeserializerUtil.fromJson(message.getPayload());
+            String requestId = Objects.isNull(functionRequest.requestContext())
+                ? null : functionRequest.requestContext().requestId();
+            String routingKey = routingKey(message);
+            if (Objects.isNull(routingKey)) {
+                routingKey = functionRequest.header(FunctionsUtil.ROUTING_PARAMETER);
+            }
+            return this.dispatchEvent(this.route(routingKey, requestId), functionRequest, requestId);
+        } catch (StreamConstraintsException exception) {
+            return ResponseUtil.error(new ValidationException("Request exceeds the parser limits: "
+                + exception.getOriginalMessage(), null));
+        } catch (IOException exception) {
+            return ResponseUtil.error(new CityException("Couldn't deserialize request: " + exception.getMessage(),
+                ErrorCode.INTERNAL_002, exception));
+        } catch (CityException exception) {
+            return ResponseUtil.error(exception);
+        }
+    }
+
+    private Route<?, ?> route(final String routingKey, final String requestId) {
+        Route<?, ?> route = Objects.isNull(routingKey) ? null : this.routes.get(routingKey);
+        if (Objects.isNull(route)) {
+            throw new ResourceNotFoundException("No function registered for routing key: " + routingKey, requestId);
+        }
+        return route;
+    }
+
+    private <I, O> Message<String> dispatchEnvelope(final Route<I, O> route, final String payload) throws IOException {
+        long start = System.nanoTime();
+        InvocationEnvelope<I> envelope;
+        try {
+            envelope = route.envelopeReader().readValue(payload);
+        } catch (JsonMappingException exception) {
+            throw DeserializerUtil.unwrapConstraints(exception);
+        } finally {
+            FunctionsMetrics.DESERIALIZATION.recordSince(start);
+        }
+        if (Objects.isNull(envelope.body())) {
+            throw new ValidationException("Request body is missing or empty.", envelope.requestId());
+        }
+        O response = route.handler().handle(envelope.body(), envelope.requestId());
+        return respond(route, new InvocationEnvelope<>(envelope.requestId(), null, response), true,
+            envelope.requestId());
+    }
+
+    private <I, O> Message<String> dispatchEvent(final Route<I, O> route,
+                                                 final FunctionRequest functionRequest,
+                                                 final String requestId) throws IOException {
+        DeserializerUtil.requireValidBody(functionRequest.body(), functionRequest.base64Encoded(), requestId);
+        long start = System.nanoTime();
+        I request;
+        try {
+            request = DeserializerUtil.readBody(functionRequest, route.bodyReader());
+        } finally {
+            FunctionsMetrics.DESERIALIZATION.recordSince(start);
+        }
+        return respond(route, route.handler().handle(request, requestId), false, requestId);
+    }
+
+    private static Message<String> respond(final Route<?, ?> route,
+                                           final Object response,
+                                           final boolean envelope,
+                                           final String requestId) {
+        long start = System.nanoTime();
+        try {
+            String payload = envelope
+                ? route.envelopeWriter().writeValueAsString(response)
+                : route.bodyWriter().writeValueAsString(response);
+            return MessageBuilder
+                .withPayload(payload)
+                .setHeader(ResponseUtil.LAMBDA_STATUS_CODE, HttpStatus.OK.value())
+                .setHeader(HttpHeaders.CONTENT_TYPE,
+                    envelope ? InvocationEnvelope.CONTENT_TYPE : MimeTypeUtils.APPLICATION_JSON_VALUE)
+                .build();
+        } catch (JsonProcessingException exception) {
+            throw new CityException("Error serializing response body: " + response, ErrorCode.INTERNAL_002,
+                requestId, exception);
+        } finally {
+            FunctionsMetrics.SERIALIZATION.recordSince(start);
+        }
+    }
+
+    private static String routingKey(final Message<String> message) {
+        Object routingKey = message.getHeaders().get(FunctionsUtil.ROUTING_PARAMETER);
+        return Objects.isNull(routingKey) ? null : routingKey.toString();
+    }
+
+    private static String envelopeRoutingKey(final String payload) throws IOException {
+        // The routing key is written before the body, so the body is rarely scanned here.
+        try (JsonParser parser = FunctionsUtil.OBJECT_MAPPER.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("routingKey".equals(name)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+}
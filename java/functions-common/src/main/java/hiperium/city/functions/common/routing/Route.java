@@ -0,0 +1,87 @@
+package hiperium.city.functions.common.routing;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+
+import java.util.Objects;
+
+/**
+ * The Route class binds a routing key to its {@link RouteHandler}, and to the Jackson readers and writers of
+ * its request and response types. The readers and writers are created once, when the route is defined, so
+ * dispatching a request doesn't need any type resolution.
+ *
+ * @param <I> The type of the request body.
+ * @param <O> The type of the response body.
+ */
+public final class Route<I, O> {
+
+    private final String routingKey;
+    private final RouteHandler<I, O> handler;
+    private final ObjectReader bodyReader;
+    private final ObjectReader envelopeReader;
+    private final ObjectWriter bodyWriter;
+    private final ObjectWriter envelopeWriter;
+
+    private Route(String routingKey, Class<I> requestType, Class<O> responseType, RouteHandler<I, O> handler) {
+        TypeFactory typeFactory = FunctionsUtil.OBJECT_MAPPER.getTypeFactory();
+        JavaType requestEnvelopeType = typeFactory.constructParametricType(InvocationEnvelope.class, requestType);
+        JavaType responseEnvelopeType = typeFactory.constructParametricType(InvocationEnvelope.class, responseType);
+        this.routingKey = Objects.requireNonNull(routingKey, "The routing key must not be null.");
+        this.handler = Objects.requireNonNull(handler, "The route handler must not be null.");
+        this.bodyReader = FunctionsUtil.OBJECT_MAPPER.readerFor(requestType);
+        this.envelopeReader = FunctionsUtil.OBJECT_MAPPER.readerFor(requestEnvelopeType);
+        this.bodyWriter = FunctionsUtil.OBJECT_MAPPER.writerFor(responseType);
+        this.envelopeWriter = FunctionsUtil.OBJECT_MAPPER.writerFor(responseEnvelopeType);
+    }
+
+    /**
+     * Defines a route.
+     *
+     * @param routingKey   The routing key, i.e., the value of the {@value FunctionsUtil#ROUTING_PARAMETER} header.
+     * @param requestType  The type of the request body.
+     * @param responseType The type of the response body.
+     * @param handler      The function handling the requests.
+     * @param <I>          The type of the request body.
+     * @param <O>          The type of the response body.
+     * @return A new route.
+     */
+    public static <I, O> Route<I, O> of(String routingKey,
+                                        Class<I> requestType,
+                                        Class<O> responseType,
+                                        RouteHandler<I, O> handler) {
+        return new Route<>(routingKey, requestType, responseType, handler);
+    }
+
+    /**
+     * Retrieves the routing key of the route.
+     *
+     * @return The routing key.
+     */
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    RouteHandler<I, O> handler() {
+        return handler;
+    }
+
+    ObjectReader bodyReader() {
+        return bodyReader;
+    }
+
+    ObjectReader envelopeReader() {
+        return envelopeReader;
+    }
+
+    ObjectWriter bodyWriter() {
+        return bodyWriter;
+    }
+
+    ObjectWriter envelopeWriter() {
+        return envelopeWriter;
+    }
+}
@@ -0,0 +1,20 @@
+package hiperium.city.functions.common.routing;
+
+/**
+ * The RouteHandler interface is implemented by the functions registered in a {@link FunctionDispatcher}.
+ *
+ * @param <I> The type of the request body.
+ * @param <O> The type of the response body.
+ */
+@FunctionalInterface
+public interface RouteHandler<I, O> {
+
+    /**
+     * Handles a request routed to the function.
+     *
+     * @param body      The deserialized request body.
+     * @param requestId The request ID, to be propagated in the exceptions.
+     * @return The response body, serialized into JSON by the dispatcher.
+     */
+    O handle(I body, String requestId);
+}
@@ -0,0 +1,213 @@
+package hiperium.city.functions.common.tracing;
+
+import hiperium.city.functions.common.enums.InvocationStage;
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.metrics.MetricTimer;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import org.slf4j.MDC;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The InvocationTrace class records the duration of each {@link InvocationStage} of a function invocation,
+ * correlated by the API Gateway request ID.
+ * <p>
+ * Every thread owns a single, preallocated trace that is reset by {@link #start(FunctionRequest)}, and stage
+ * boundaries are stored as {@link System#nanoTime()} values in primitive arrays, so tracing a stage doesn't
+ * allocate any object:
+ * <pre>{@code
+ * InvocationTrace trace = InvocationTrace.start(functionRequest);
+ * trace.begin(InvocationStage.PARSE);
+ * CityIdRequest cityIdRequest = DeserializerUtil.deserializeCityId(functionRequest);
+ * trace.end(InvocationStage.PARSE);
+ * // ... other stages ...
+ * trace.finish();
+ * }</pre>
+ * While a trace is active, the request ID and the X-Ray trace header of the request are available in the
+ * logging MDC, so every log line written during the invocation can be correlated.
+ * <p>
+ * {@link hiperium.city.functions.common.concurrency.InvocationDeadline#respond} and
+ * {@link hiperium.city.functions.common.concurrency.TaskScope} bind the trace of the calling thread to the virtual
+ * threads they start, so the stages recorded by the handler land in the trace of the invocation. Subtasks running
+ * concurrently should record distinct stages.
+ */
+public final class InvocationTrace {
+
+    /**
+     * The HTTP header carrying the AWS X-Ray trace context.
+     */
+    public static final String TRACE_HEADER = "X-Amzn-Trace-Id";
+
+    /**
+     * The MDC key holding the request ID of the traced invocation.
+     */
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    /**
+     * The MDC key holding the X-Ray trace header of the traced invocation.
+     */
+    public static final String MDC_TRACE_ID = "traceId";
+
+    private static final HiperiumLogger LOGGER = new HiperiumLogger(InvocationTrace.class);
+    private static final InvocationStage[] STAGES = InvocationStage.values();
+    private static final Map<InvocationStage, MetricTimer> STAGE_TIMERS = new EnumMap<>(InvocationStage.class);
+    private static final ThreadLocal<InvocationTrace> CURRENT = ThreadLocal.withInitial(InvocationTrace::new);
+
+    static {
+        for (InvocationStage stage : STAGES) {
+            STAGE_TIMERS.put(stage, FunctionsMetrics.writer().timer(stage.getValue() + "StageTime"));
+        }
+    }
+
+    private final long[] stageStarts = new long[STAGES.length];
+    private final long[] stageDurations = new long[STAGES.length];
+    private long invocationStart;
+    private String requestId;
+    private String traceHeader;
+
+    private InvocationTrace() {
+        // Instances are owned by the thread that records them.
+    }
+
+    /**
+     * Starts tracing a new invocation in the current thread, resetting the thread's trace.
+     *
+     * @param functionRequest The incoming request, used to correlate the trace with its request ID
+     *                        and the X-Ray trace header.
+     * @return The trace of the current thread, ready to record stages.
+     */
+    public static InvocationTrace start(final FunctionRequest functionRequest) {
+        InvocationTrace trace = CURRENT.get();
+        trace.reset(Objects.isNull(functionRequest.requestContext())
+                ? null : functionRequest.requestContext().requestId(),
+            functionRequest.header(TRACE_HEADER));
+        return trace;
+    }
+
+    /**
+     * Retrieves the trace of the current thread.
+     *
+     * @return The trace last started in the current thread.
+     */
+    public static InvocationTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds the given trace to the current thread, e.g., to a thread running a task on behalf of the invocation
+     * that owns the trace.
+     *
+     * @param trace The trace of the invocation.
+     */
+    public static void bind(final InvocationTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    /**
+     * Removes the trace bound to the current thread by {@link #bind(InvocationTrace)}.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Marks the beginning of the given stage.
+     *
+     * @param stage The stage that begins.
+     */
+    public void begin(final InvocationStage stage) {
+        this.stageStarts[stage.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the given stage. When a stage is traced more than once during an invocation,
+     * its durations are added up.
+     *
+     * @param stage The stage that ends.
+     */
+    public void end(final InvocationStage stage) {
+        int index = stage.ordinal();
+        this.stageDurations[index] += System.nanoTime() - this.stageStarts[index];
+    }
+
+    /**
+     * Retrieves the accumulated duration of the given stage.
+     *
+     * @param stage The stage whose duration is requested.
+     * @return The duration of the stage in nanoseconds, or zero if it wasn't traced.
+     */
+    public long durationNanos(final InvocationStage stage) {
+        return this.stageDurations[stage.ordinal()];
+    }
+
+    /**
+     * Finishes the invocation trace: the stage durations are written in a single log line,
+     * recorded in the stage timers of {@link FunctionsMetrics}, and the MDC entries are removed.
+     */
+    public void finish() {
+        long totalNanos = System.nanoTime() - this.invocationStart;
+        for (InvocationStage stage : STAGES) {
+            long duration = this.stageDurations[stage.ordinal()];
+            if (duration > 0L) {
+                STAGE_TIMERS.get(stage).recordNanos(duration);
+            }
+        }
+        LOGGER.info("Invocation trace - requestId: {}, totalUs: {}, parseUs: {}, validateUs: {}, "
+                + "businessUs: {}, serializeUs: {}",
+            this.requestId,
+            TimeUnit.NANOSECONDS.toMicros(totalNanos),
+            this.micros(InvocationStage.PARSE),
+            this.micros(InvocationStage.VALIDATE),
+            this.micros(InvocationStage.BUSINESS),
+            this.micros(InvocationStage.SERIALIZE));
+        MDC.remove(MDC_REQUEST_ID);
+        MDC.remove(MDC_TRACE_ID);
+    }
+
+    /**
+     * Retrieves the request ID of the traced invocation.
+     *
+     * @return The request ID, or {@code null} if the request didn't include one.
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Retrieves the X-Ray trace header received with the traced request, so it can be passed
+     * through to downstream calls.
+     *
+     * @return The trace header value, or {@code null} if the request didn't include one.
+     */
+    public String getTraceHeader() {
+        return traceHeader;
+    }
+
+    private void reset(final String requestId, final String traceHeader) {
+        this.requestId = requestId;
+        this.traceHeader = traceHeader;
+        for (int index = 0; index < STAGES.length; index++) {
+            this.stageStarts[index] = 0L;
+            this.stageDurations[index] = 0L;
+        }
+        putOrRemove(MDC_REQUEST_ID, requestId);
+        putOrRemove(MDC_TRACE_ID, traceHeader);
+        this.invocationStart = System.nanoTime();
+    }
+
+    private static void putOrRemove(final String key, final String value) {
+        if (Objects.isNull(value)) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, value);
+        }
+    }
+
+    private long micros(final InvocationStage stage) {
+        return TimeUnit.NANOSECONDS.toMicros(this.stageDurations[stage.ordinal()]);
+    }
+}
@@ -0,0 +1,203 @@
+package hiperium.city.functions.common.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The CompressingOutputStream class receives a serialized response body and compresses it on the fly, once it
+ * grows past a size threshold. Smaller bodies are kept as they are, since compressing them costs more than it
+ * saves. The compressed bytes are Base64-encoded as they're produced, as API Gateway expects binary bodies,
+ * so the body is never held both in plain and compressed form.
+ * <p>
+ * Deflaters hold native zlib memory, so they're borrowed from a small bounded pool and returned when the stream is
+ * closed, as handlers run on a new virtual thread per invocation and per-thread instances would never be reused.
+ * A deflater returned to a full pool is ended right away instead of waiting for the garbage collector. Gzip framing
+ * is written by this class, because {@link java.util.zip.GZIPOutputStream} always allocates its own deflater.
+ */
+final class CompressingOutputStream extends OutputStream {
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int DEFLATER_BUFFER_SIZE = 8 * 1024;
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final BlockingQueue<Deflater> GZIP_DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> DEFLATE_DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final String encoding;
+    private final byte[] buffer;
+    private int count;
+    private ByteArrayOutputStream target;
+    private OutputStream base64Stream;
+    private Deflater deflater;
+    private DeflaterOutputStream deflaterStream;
+    private CRC32 crc;
+    private boolean closed;
+
+    CompressingOutputStream(String encoding, int threshold) {
+        this.encoding = encoding;
+        this.buffer = new byte[threshold];
+    }
+
+    /**
+     * Selects the content encoding of a response from the Accept-Encoding header of its request,
+     * preferring gzip over deflate. The {@code *} wildcard only applies to the codings that aren't listed,
+     * so an explicit {@code q=0} always excludes its coding.
+     *
+     * @param acceptEncoding The value of the Accept-Encoding header, possibly {@code null}.
+     * @return {@value #GZIP}, {@value #DEFLATE}, or {@code null} if the client accepts neither.
+     */
+    static String negotiate(final String acceptEncoding) {
+        if (Objects.isNull(acceptEncoding) || acceptEncoding.isBlank()) {
+            return null;
+        }
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = isAcceptable(parts);
+            switch (name) {
+                case GZIP -> gzip = acceptable;
+                case DEFLATE -> deflate = acceptable;
+                case "*" -> wildcard = acceptable;
+                default -> {
+                    // Codings that can't be produced are ignored.
+                }
+            }
+        }
+        if (Objects.isNull(gzip) ? wildcard : gzip) {
+            return GZIP;
+        }
+        return (Objects.isNull(deflate) ? wildcard : deflate) ? DEFLATE : null;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        this.write(new byte[]{(byte) value}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (Objects.isNull(this.deflaterStream) && this.count + length <= this.buffer.length) {
+            System.arraycopy(bytes, offset, this.buffer, this.count, length);
+            this.count += length;
+            return;
+        }
+        if (Objects.isNull(this.deflaterStream)) {
+            this.startCompression();
+        }
+        this.deflaterStream.write(bytes, offset, length);
+        if (Objects.nonNull(this.crc)) {
+            this.crc.update(bytes, offset, length);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed || Objects.isNull(this.deflaterStream)) {
+            this.closed = true;
+            return;
+        }
+        this.closed = true;
+        try {
+            this.deflaterStream.finish();
+            if (Objects.nonNull(this.crc)) {
+                writeIntLittleEndian(this.base64Stream, (int) this.crc.getValue());
+                writeIntLittleEndian(this.base64Stream, (int) this.deflater.getBytesRead());
+            }
+            this.base64Stream.close();
+        } finally {
+            release(Objects.nonNull(this.crc) ? GZIP_DEFLATERS : DEFLATE_DEFLATERS, this.deflater);
+        }
+    }
+
+    /**
+     * Tells whether the body was compressed, which is known once the stream is closed.
+     *
+     * @return {@code true} if the body exceeded the threshold and was compressed.
+     */
+    boolean isCompressed() {
+        return Objects.nonNull(this.deflaterStream);
+    }
+
+    /**
+     * Retrieves the response payload, once the stream is closed.
+     *
+     * @return The Base64 compressed body if it was compressed, or the plain body otherwise.
+     */
+    String payload() {
+        return this.isCompressed()
+            ? this.target.toString(StandardCharsets.US_ASCII)
+            : new String(this.buffer, 0, this.count, StandardCharsets.UTF_8);
+    }
+
+    private void startCompression() throws IOException {
+        boolean gzip = GZIP.equals(this.encoding);
+        this.deflater = borrow(gzip ? GZIP_DEFLATERS : DEFLATE_DEFLATERS, gzip);
+        this.target = new ByteArrayOutputStream(this.buffer.length);
+        this.base64Stream = Base64.getEncoder().wrap(this.target);
+        if (gzip) {
+            this.base64Stream.write(GZIP_HEADER);
+            this.crc = new CRC32();
+            this.crc.update(this.buffer, 0, this.count);
+        }
+        this.deflaterStream = new DeflaterOutputStream(this.base64Stream, this.deflater, DEFLATER_BUFFER_SIZE);
+        this.deflaterStream.write(this.buffer, 0, this.count);
+    }
+
+    private static Deflater borrow(final BlockingQueue<Deflater> pool, boolean gzip) {
+        Deflater deflater = pool.poll();
+        return Objects.isNull(deflater) ? new Deflater(Deflater.DEFAULT_COMPRESSION, gzip) : deflater;
+    }
+
+    private static void release(final BlockingQueue<Deflater> pool, final Deflater deflater) {
+        deflater.reset();
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Retrieves the number of idle deflaters kept for the given encoding.
+     *
+     * @param encoding {@value #GZIP} or {@value #DEFLATE}.
+     * @return The number of pooled deflaters, at most the pool size.
+     */
+    static int pooledDeflaters(final String encoding) {
+        return GZIP.equals(encoding) ? GZIP_DEFLATERS.size() : DEFLATE_DEFLATERS.size();
+    }
+
+    private static boolean isAcceptable(final String[] parts) {
+        for (int index = 1; index < parts.length; index++) {
+            String parameter = parts[index].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) > 0.0;
+                } catch (NumberFormatException exception) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void writeIntLittleEndian(final OutputStream outputStream, int value) throws IOException {
+        outputStream.write(value & 0xff);
+        outputStream.write((value >>> 8) & 0xff);
+        outputStream.write((value >>> 16) & 0xff);
+        outputStream.write((value >>> 24) & 0xff);
+    }
+}
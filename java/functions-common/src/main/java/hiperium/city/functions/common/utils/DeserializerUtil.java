@@ -1,20 +1,75 @@
 package hiperium.city.functions.common.utils;
 
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
 import hiperium.city.functions.common.enums.ErrorCode;
 import hiperium.city.functions.common.exceptions.CityException;
 import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
 import hiperium.city.functions.common.requests.CityIdRequest;
 import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * The RequestDeserializerUtil class provides utility methods for deserializing JSON strings
  * into AWS API Gateway-specific request event objects.
+ * <p>
+ * Messages sent by another city function carry an {@link InvocationEnvelope} instead, identified by their
+ * content type. {@link #deserializeBody(Message, Class)} negotiates the format of a message automatically.
+ * <p>
+ * Request bodies are bounded: bodies longer than {@link #MAX_BODY_LENGTH} are rejected before parsing, or while
+ * they're decoded when they're Base64-encoded, and the nesting depth and string length limits are enforced by the
+ * parser of {@link FunctionsUtil#OBJECT_MAPPER}. Each limit can be overridden with a system property. Request bodies
+ * quoted in exception messages are truncated, so a hostile payload can't inflate the logs or the error responses.
+ * <p>
+ * Base64-encoded bodies, optionally gzipped as declared by their {@code Content-Encoding} header, are decoded
+ * while they're parsed, without any intermediate copy of the decoded body.
  */
 public final class DeserializerUtil {
 
+    /**
+     * System property used to override the maximum length of a request body.
+     */
+    public static final String MAX_BODY_LENGTH_PROPERTY = "hiperium.requests.max-body-length";
+
+    /**
+     * System property used to override the maximum nesting depth of a JSON document.
+     */
+    public static final String MAX_NESTING_DEPTH_PROPERTY = "hiperium.requests.max-nesting-depth";
+
+    /**
+     * System property used to override the maximum length of a JSON string value.
+     */
+    public static final String MAX_STRING_LENGTH_PROPERTY = "hiperium.requests.max-string-length";
+
+    /**
+     * The maximum length in characters of a request body, 256 KiB by default.
+     */
+    public static final int MAX_BODY_LENGTH = Integer.getInteger(MAX_BODY_LENGTH_PROPERTY, 256 * 1024);
+
+    /**
+     * The maximum nesting depth of the objects and arrays of a JSON document, 32 by default.
+     */
+    public static final int MAX_NESTING_DEPTH = Integer.getInteger(MAX_NESTING_DEPTH_PROPERTY, 32);
+
+    /**
+     * The maximum length in characters of a JSON string value. It defaults to the length of a maximum body
+     * once Base64-encoded, as the body of an API Gateway event is itself a string value of the event.
+     */
+    public static final int MAX_STRING_LENGTH = Integer.getInteger(MAX_STRING_LENGTH_PROPERTY,
+        encodedLength(MAX_BODY_LENGTH));
+
+    private static final int DIAGNOSTIC_LENGTH = 128;
+
     private DeserializerUtil() {
         throw new UnsupportedOperationException("Utility classes should not be instantiated.");
     }
@@ -24,10 +79,18 @@ public final class DeserializerUtil {
      *
      * @param json the JSON string to be deserialized; must conform to the structure of {@link FunctionRequest}.
      * @return an instance of {@link FunctionRequest} containing the deserialized data from the JSON string.
-     * @throws IOException if an error occurs while parsing the JSON string.
+     * @throws IOException if an error occurs while parsing the JSON string, or a
+     *                     {@link StreamConstraintsException} if the event exceeds the parser limits.
      */
     public static FunctionRequest fromJson(String json) throws IOException {
-        return FunctionsUtil.OBJECT_MAPPER.readValue(json, FunctionRequest.class);
+        long start = System.nanoTime();
+        try {
+            return FunctionsUtil.OBJECT_MAPPER.readValue(json, FunctionRequest.class);
+        } catch (JsonMappingException exception) {
+            throw unwrapConstraints(exception);
+        } finally {
+            FunctionsMetrics.DESERIALIZATION.recordSince(start);
+        }
     }
 
     /**
@@ -37,19 +100,250 @@ public final class DeserializerUtil {
      *
      * @param functionRequest The incoming request object containing headers, body, and context data.
      * @return The deserialized CityIdRequest object extracted from the request body.
-     * @throws ValidationException If the request body is missing or empty.
+     * @throws ValidationException If the request body is missing, empty, or exceeds the size limits.
      * @throws CityException If an error occurs during deserialization of the request body.
      */
     public static CityIdRequest deserializeCityId(final FunctionRequest functionRequest){
-        if (Objects.isNull(functionRequest.body()) || functionRequest.body().isBlank()) {
-            throw new ValidationException("Request body is missing or empty.",
-                functionRequest.requestContext().requestId());
+        String requestId = requestId(functionRequest);
+        String body = requireValidBody(functionRequest.body(), functionRequest.base64Encoded(), requestId);
+        long start = System.nanoTime();
+        try {
+            return readBody(functionRequest, FunctionsUtil.OBJECT_MAPPER.readerFor(CityIdRequest.class));
+        } catch (StreamConstraintsException exception) {
+            throw exceedsLimits(exception, requestId);
+        } catch (IOException exception) {
+            throw new CityException("Couldn't deserialize CityId from request body: " + truncate(body),
+                ErrorCode.INTERNAL_002, requestId, exception);
+        } finally {
+            FunctionsMetrics.DESERIALIZATION.recordSince(start);
         }
+    }
+
+    /**
+     * Deserializes a JSON string into an {@link InvocationEnvelope} whose body has the given type.
+     * The body is read in the same pass as the envelope.
+     *
+     * @param json     the JSON string to be deserialized; must conform to the structure of {@link InvocationEnvelope}.
+     * @param bodyType the type of the envelope body.
+     * @param <T>      the type of the envelope body.
+     * @return an instance of {@link InvocationEnvelope} containing the deserialized data from the JSON string.
+     * @throws IOException if an error occurs while parsing the JSON string, or a
+     *                     {@link StreamConstraintsException} if the envelope exceeds the parser limits.
+     */
+    public static <T> InvocationEnvelope<T> fromEnvelope(String json, Class<T> bodyType) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return FunctionsUtil.OBJECT_MAPPER.readValue(json, FunctionsUtil.OBJECT_MAPPER.getTypeFactory()
+                .constructParametricType(InvocationEnvelope.class, bodyType));
+        } catch (JsonMappingException exception) {
+            throw unwrapConstraints(exception);
+        } finally {
+            FunctionsMetrics.DESERIALIZATION.recordSince(start);
+        }
+    }
+
+    /**
+     * Deserializes the body of a message into the given type, whatever its format. Messages identified by
+     * {@link #isEnvelope(Message)} are read as an {@link InvocationEnvelope}, and any other message as an
+     * API Gateway event whose body holds the JSON document.
+     *
+     * @param message  The incoming message.
+     * @param bodyType The type of the request body.
+     * @param <T>      The type of the request body.
+     * @return The deserialized request body.
+     * @throws ValidationException If the request body is missing, empty, or exceeds the size limits.
+     * @throws CityException If an error occurs during deserialization of the message.
+     */
+    public static <T> T deserializeBody(final Message<String> message, final Class<T> bodyType) {
+        if (isEnvelope(message)) {
+            String payload = requireValidBody(message.getPayload(), null);
+            InvocationEnvelope<T> envelope;
+            try {
+                envelope = fromEnvelope(payload, bodyType);
+            } catch (StreamConstraintsException exception) {
+                throw exceedsLimits(exception, null);
+            } catch (IOException exception) {
+                throw new CityException("Couldn't deserialize invocation envelope: " + truncate(payload),
+                    ErrorCode.INTERNAL_002, exception);
+            }
+            if (Objects.isNull(envelope.body())) {
+                throw new ValidationException("Request body is missing or empty.", envelope.requestId());
+            }
+            return envelope.body();
+        }
+        FunctionRequest functionRequest;
         try {
-            return FunctionsUtil.OBJECT_MAPPER.readValue(functionRequest.body(), CityIdRequest.class);
+            functionRequest = fromJson(message.getPayload());
+        } catch (StreamConstraintsException exception) {
+            throw exceedsLimits(exception, null);
         } catch (IOException exception) {
-            throw new CityException("Couldn't deserialize CityId from request body: " + functionRequest.body(),
+            throw new CityException("Couldn't deserialize request event: " + truncate(message.getPayload()),
                 ErrorCode.INTERNAL_002, exception);
         }
+        String requestId = requestId(functionRequest);
+        String body = requireValidBody(functionRequest.body(), functionRequest.base64Encoded(), requestId);
+        long start = System.nanoTime();
+        try {
+            return readBody(functionRequest, FunctionsUtil.OBJECT_MAPPER.readerFor(bodyType));
+        } catch (StreamConstraintsException exception) {
+            throw exceedsLimits(exception, requestId);
+        } catch (IOException exception) {
+            throw new CityException("Couldn't deserialize " + bodyType.getSimpleName() + " from request body: "
+                + truncate(body), ErrorCode.INTERNAL_002, requestId, exception);
+        } finally {
+            FunctionsMetrics.DESERIALIZATION.recordSince(start);
+        }
+    }
+
+    /**
+     * Verifies whether a message carries an {@link InvocationEnvelope}, either because of its content type or,
+     * when the message has no content type, as with a direct Lambda invocation, because of the format
+     * discriminator of its payload.
+     *
+     * @param message The message.
+     * @return {@code true} if the message must be read as an invocation envelope.
+     */
+    public static boolean isEnvelope(final Message<String> message) {
+        String contentType = contentType(message);
+        return Objects.isNull(contentType)
+            ? InvocationEnvelope.isEnvelopePayload(message.getPayload())
+            : InvocationEnvelope.isEnvelope(contentType);
+    }
+
+    /**
+     * Retrieves the content type of a message, from its HTTP header or, when missing, from the
+     * Spring messaging header. The header name is matched ignoring its case, as API Gateway HTTP APIs
+     * and HTTP/2 clients deliver it in lowercase.
+     *
+     * @param message The message.
+     * @return The content type of the message, or {@code null} if it has none.
+     */
+    public static String contentType(final Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        Object contentType = headers.get(HttpHeaders.CONTENT_TYPE);
+        if (Objects.isNull(contentType)) {
+            contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        }
+        if (Objects.isNull(contentType)) {
+            for (Map.Entry<String, Object> header : headers.entrySet()) {
+                if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+                    contentType = header.getValue();
+                    break;
+                }
+            }
+        }
+        return Objects.isNull(contentType) ? null : contentType.toString();
+    }
+
+    /**
+     * Parses the body of a request with the given reader. A Base64-encoded body is decoded, and decompressed
+     * when its {@code Content-Encoding} header is {@code gzip}, while it's parsed, and its decoded length is
+     * bounded by {@link #MAX_BODY_LENGTH}.
+     *
+     * @param functionRequest The request, whose body was verified with {@link #requireValidBody}.
+     * @param reader          The reader bound to the type of the request body.
+     * @param <T>             The type of the request body.
+     * @return The deserialized request body.
+     * @throws IOException If the body can't be decoded or parsed, or a {@link StreamConstraintsException}
+     *                     if it exceeds the parser limits.
+     */
+    public static <T> T readBody(final FunctionRequest functionRequest, final ObjectReader reader) throws IOException {
+        if (!functionRequest.base64Encoded()) {
+            try {
+                return reader.readValue(functionRequest.body());
+            } catch (JsonMappingException exception) {
+                throw unwrapConstraints(exception);
+            }
+        }
+        boolean gzipped = "gzip".equalsIgnoreCase(functionRequest.header("Content-Encoding"));
+        try (InputStream inputStream = RequestBodyStreams.open(functionRequest.body(), gzipped, MAX_BODY_LENGTH)) {
+            return reader.readValue(inputStream);
+        } catch (JsonMappingException exception) {
+            throw unwrapConstraints(exception);
+        }
+    }
+
+    /**
+     * Retrieves the parser limit violation behind a mapping exception. Jackson wraps the
+     * {@link StreamConstraintsException} raised while a known property is read, such as a string value that is
+     * too long or an object nested too deeply, in a {@link JsonMappingException}, so it must be unwrapped before
+     * it's reported as an invalid request.
+     *
+     * @param exception The exception thrown by an object mapper or reader.
+     * @return The {@link StreamConstraintsException} that caused the exception, or the exception itself.
+     */
+    public static IOException unwrapConstraints(final JsonMappingException exception) {
+        for (Throwable cause = exception.getCause(); Objects.nonNull(cause); cause = cause.getCause()) {
+            if (cause instanceof StreamConstraintsException constraintsException) {
+                return constraintsException;
+            }
+        }
+        return exception;
+    }
+
+    /**
+     * Verifies that a request body is present and within {@link #MAX_BODY_LENGTH}, before it's parsed.
+     *
+     * @param body      The request body.
+     * @param requestId The request ID used to trace a rejected request.
+     * @return The request body.
+     * @throws ValidationException If the request body is missing, empty, or too long.
+     */
+    public static String requireValidBody(final String body, final String requestId) {
+        return requireValidBody(body, false, requestId);
+    }
+
+    /**
+     * Verifies that a request body is present and within {@link #MAX_BODY_LENGTH}, before it's parsed.
+     * A Base64-encoded body is allowed the encoded length of a maximum body, as its decoded length is
+     * bounded while it's read by {@link #readBody}.
+     *
+     * @param body          The request body.
+     * @param base64Encoded Whether the request body is Base64-encoded.
+     * @param requestId     The request ID used to trace a rejected request.
+     * @return The request body.
+     * @throws ValidationException If the request body is missing, empty, or too long.
+     */
+    public static String requireValidBody(final String body, boolean base64Encoded, final String requestId) {
+        if (Objects.isNull(body)) {
+            throw new ValidationException("Request body is missing or empty.", requestId);
+        }
+        int maxLength = base64Encoded ? encodedLength(MAX_BODY_LENGTH) : MAX_BODY_LENGTH;
+        if (body.length() > maxLength) {
+            throw new ValidationException("Request body exceeds the maximum length of " + maxLength
+                + " characters: " + truncate(body), requestId);
+        }
+        if (body.isBlank()) {
+            throw new ValidationException("Request body is missing or empty.", requestId);
+        }
+        return body;
+    }
+
+    /**
+     * Shortens a value quoted in a diagnostic message, such as a request body, keeping its beginning
+     * and its original length.
+     *
+     * @param value The value to quote.
+     * @return The value itself if it's short, or its beginning followed by its length.
+     */
+    public static String truncate(final String value) {
+        if (Objects.isNull(value) || value.length() <= DIAGNOSTIC_LENGTH) {
+            return value;
+        }
+        return value.substring(0, DIAGNOSTIC_LENGTH) + "... (" + value.length() + " characters)";
+    }
+
+    private static ValidationException exceedsLimits(final StreamConstraintsException exception,
+                                                     final String requestId) {
+        return new ValidationException("Request exceeds the parser limits: " + exception.getOriginalMessage(),
+            requestId);
+    }
+
+    private static int encodedLength(int decodedLength) {
+        return (int) Math.min(Integer.MAX_VALUE, 4L * ((decodedLength + 2L) / 3L));
+    }
+
+    private static String requestId(final FunctionRequest functionRequest) {
+        return Objects.isNull(functionRequest.requestContext()) ? null : functionRequest.requestContext().requestId();
     }
 }
@@ -0,0 +1,114 @@
+package hiperium.city.functions.common.utils;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.responses.ErrorDetails;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The ErrorBodyWriter class renders the {@link ErrorDetails} body of error responses from templates rendered
+ * once per {@link ErrorCode}, so an error response costs a single string concatenation instead of a reflective
+ * serialization. The output is the same as the Jackson serialization of {@link ErrorDetails} with
+ * {@link FunctionsUtil#OBJECT_MAPPER}: null fields are omitted and the timestamp uses the ISO offset format.
+ * <p>
+ * Rendering never throws: if it fails, e.g., under memory pressure, a constant body with only the code and the
+ * description of the error is returned, so an error response is always available.
+ */
+final class ErrorBodyWriter {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final Map<ErrorCode, String> PREFIXES = new EnumMap<>(ErrorCode.class);
+    private static final Map<ErrorCode, String> FALLBACK_BODIES = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode code : ErrorCode.values()) {
+            StringBuilder prefix = new StringBuilder("{\"code\":\"");
+            escape(code.name(), prefix);
+            prefix.append("\",\"description\":\"");
+            escape(code.getDescription(), prefix);
+            prefix.append('"');
+            PREFIXES.put(code, prefix.toString());
+            FALLBACK_BODIES.put(code, prefix + "}");
+        }
+    }
+
+    private ErrorBodyWriter() {
+        throw new UnsupportedOperationException("Utility classes should not be instantiated.");
+    }
+
+    /**
+     * Renders the error body of the given error.
+     *
+     * @param code      The error code.
+     * @param detail    The detailed description of the error, possibly {@code null}.
+     * @param timestamp When the error occurred.
+     * @param requestId The request ID, possibly {@code null}.
+     * @return The JSON error body.
+     */
+    static String render(final ErrorCode code,
+                         final String detail,
+                         final ZonedDateTime timestamp,
+                         final String requestId) {
+        try {
+            String prefix = PREFIXES.get(code);
+            StringBuilder body = new StringBuilder(prefix.length() + 96
+                + (Objects.isNull(detail) ? 0 : detail.length() + 12)
+                + (Objects.isNull(requestId) ? 0 : requestId.length() + 16));
+            body.append(prefix);
+            if (Objects.nonNull(detail)) {
+                body.append(",\"detail\":\"");
+                escape(detail, body);
+                body.append('"');
+            }
+            if (Objects.nonNull(timestamp)) {
+                body.append(",\"timestamp\":\"");
+                DateTimeFormatter.ISO_OFFSET_DATE_TIME.formatTo(timestamp, body);
+                body.append('"');
+            }
+            if (Objects.nonNull(requestId)) {
+                body.append(",\"requestId\":\"");
+                escape(requestId, body);
+                body.append('"');
+            }
+            return body.append('}').toString();
+        } catch (RuntimeException | OutOfMemoryError exception) {
+            return fallback(code);
+        }
+    }
+
+    /**
+     * Retrieves the constant body of the given error, holding only its code and description.
+     *
+     * @param code The error code.
+     * @return The JSON error body.
+     */
+    static String fallback(final ErrorCode code) {
+        return FALLBACK_BODIES.get(code);
+    }
+
+    private static void escape(final String value, final StringBuilder target) {
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            switch (character) {
+                case '"' -> target.append("\\\"");
+                case '\\' -> target.append("\\\\");
+                case '\b' -> target.append("\\b");
+                case '\f' -> target.append("\\f");
+                case '\n' -> target.append("\\n");
+                case '\r' -> target.append("\\r");
+                case '\t' -> target.append("\\t");
+                default -> {
+                    if (character < 0x20) {
+                        target.append("\\u00").append(HEX_DIGITS[character >> 4]).append(HEX_DIGITS[character & 0xF]);
+                    } else {
+                        target.append(character);
+                    }
+                }
+            }
+        }
+    }
+}
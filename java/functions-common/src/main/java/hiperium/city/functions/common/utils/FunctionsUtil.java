@@ -1,6 +1,8 @@
 package hiperium.city.functions.common.utils;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -20,9 +22,15 @@ public final class FunctionsUtil {
 
     /**
      * An instance of Jackson's ObjectMapper configured for JSON serialization and deserialization.
-     * It is used throughout the application for handling JSON-related operations.
+     * It is used throughout the application for handling JSON-related operations. Its parser enforces the
+     * nesting depth and string length limits defined in {@link DeserializerUtil}.
      */
-    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder()
+                .maxNestingDepth(DeserializerUtil.MAX_NESTING_DEPTH)
+                .maxStringLength(DeserializerUtil.MAX_STRING_LENGTH)
+                .build())
+            .build())
         .setSerializationInclusion(JsonInclude.Include.NON_NULL)
         .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
         .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
@@ -0,0 +1,109 @@
+package hiperium.city.functions.common.utils;
+
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The RequestBodyStreams class opens Base64-encoded request bodies as byte streams, decoding them, and
+ * decompressing them when they're gzipped, while the JSON parser reads them. The encoded body is read in place
+ * from its String, so no decoded copy of the whole body is ever held in memory.
+ */
+final class RequestBodyStreams {
+
+    private RequestBodyStreams() {
+        throw new UnsupportedOperationException("Utility classes should not be instantiated.");
+    }
+
+    /**
+     * Opens a stream over the decoded bytes of a Base64-encoded body.
+     *
+     * @param body     The Base64-encoded body.
+     * @param gzipped  Whether the decoded bytes are gzip-compressed.
+     * @param maxBytes The maximum number of decoded bytes, beyond which reading fails.
+     * @return The stream of the decoded bytes.
+     * @throws IOException If the gzip header is invalid.
+     */
+    static InputStream open(final String body, boolean gzipped, int maxBytes) throws IOException {
+        InputStream decoded = Base64.getDecoder().wrap(new AsciiInputStream(body));
+        return new BoundedInputStream(gzipped ? new GZIPInputStream(decoded) : decoded, maxBytes);
+    }
+
+    /**
+     * Reads the characters of an ASCII string, such as a Base64 text, as bytes.
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final String value;
+        private int position;
+
+        private AsciiInputStream(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int read() {
+            return this.position < this.value.length() ? this.value.charAt(this.position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int count = Math.min(length, this.value.length() - this.position);
+            if (count <= 0) {
+                return -1;
+            }
+            for (int index = 0; index < count; index++) {
+                bytes[offset + index] = (byte) this.value.charAt(this.position++);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Fails once more than the maximum number of bytes are read, so a small compressed body can't expand
+     * into an unbounded document.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private final int maxBytes;
+        private long count;
+
+        private BoundedInputStream(InputStream inputStream, int maxBytes) {
+            super(inputStream);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                this.count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                this.count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws StreamConstraintsException {
+            this.count += read;
+            if (this.count > this.maxBytes) {
+                throw new StreamConstraintsException("Decoded request body exceeds the maximum length of "
+                    + this.maxBytes + " bytes");
+            }
+        }
+    }
+}
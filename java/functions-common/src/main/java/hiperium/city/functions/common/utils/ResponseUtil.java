@@ -3,6 +3,9 @@ package hiperium.city.functions.common.utils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import hiperium.city.functions.common.enums.ErrorCode;
 import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
 import hiperium.city.functions.common.responses.ErrorDetails;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -10,7 +13,15 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.util.MimeTypeUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * The ResponseUtil class provides utility methods for constructing and returning
@@ -26,6 +37,20 @@ public final class ResponseUtil {
      */
     public static final String LAMBDA_STATUS_CODE = "statusCode";
 
+    /**
+     * This key tells API Gateway that the response body is Base64-encoded binary data,
+     * as it is when the response is compressed.
+     */
+    public static final String LAMBDA_IS_BASE64_ENCODED = "isBase64Encoded";
+
+    /**
+     * The size in bytes of the serialized body below which a response isn't compressed.
+     */
+    public static final int COMPRESSION_THRESHOLD = 1024;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     private ResponseUtil() {
         throw new UnsupportedOperationException("Utility classes should not be instantiated.");
     }
@@ -40,6 +65,7 @@ public final class ResponseUtil {
      * @throws CityException If an error occurs during JSON serialization of the body.
      */
     public static Message<String> success(Object body) {
+        long start = System.nanoTime();
         try {
             return MessageBuilder
                 .withPayload(FunctionsUtil.OBJECT_MAPPER.writeValueAsString(body))
@@ -48,34 +74,247 @@ public final class ResponseUtil {
                 .build();
         } catch (JsonProcessingException exception) {
             throw new CityException("Error serializing response body: " + body, ErrorCode.INTERNAL_002, exception);
+        } finally {
+            FunctionsMetrics.SERIALIZATION.recordSince(start);
+        }
+    }
+
+    /**
+     * Constructs a success response message with the specified body, compressed with gzip or deflate when the
+     * request accepts it and the serialized body is larger than {@value #COMPRESSION_THRESHOLD} bytes.
+     * The body is compressed while it's serialized, and a compressed response is Base64-encoded with the
+     * {@code Content-Encoding} and {@value #LAMBDA_IS_BASE64_ENCODED} headers set.
+     *
+     * @param body            The body of the response to be serialized into JSON.
+     * @param functionRequest The request, whose {@code Accept-Encoding} header is used for the negotiation.
+     * @return A {@code Message<String>} containing the serialized JSON payload, possibly compressed,
+     *         and the appropriate headers.
+     * @throws CityException If an error occurs during JSON serialization of the body.
+     */
+    public static Message<String> success(Object body, FunctionRequest functionRequest) {
+        String encoding = CompressingOutputStream.negotiate(functionRequest.header(HttpHeaders.ACCEPT_ENCODING));
+        if (Objects.isNull(encoding)) {
+            return success(body);
+        }
+        long start = System.nanoTime();
+        CompressingOutputStream outputStream = new CompressingOutputStream(encoding, COMPRESSION_THRESHOLD);
+        try (outputStream) {     // Returns the pooled deflater even if serialization fails.
+            FunctionsUtil.OBJECT_MAPPER.writeValue(outputStream, body);
+        } catch (IOException exception) {
+            throw new CityException("Error serializing response body: " + body, ErrorCode.INTERNAL_002,
+                Objects.isNull(functionRequest.requestContext()) ? null : functionRequest.requestContext().requestId(),
+                exception);
+        } finally {
+            FunctionsMetrics.SERIALIZATION.recordSince(start);
+        }
+        return withEncoding(MessageBuilder
+            .withPayload(outputStream.payload())
+            .setHeader(LAMBDA_STATUS_CODE, HttpStatus.OK.value())
+            .setHeader(HttpHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE), outputStream, encoding);
+    }
+
+    /**
+     * Compresses an already built response for the given request, as {@link #success(Object, FunctionRequest)}
+     * does while serializing, e.g., to replay a stored response with the encoding the retrying client accepts.
+     * Responses that are already Base64-encoded are returned as they are.
+     *
+     * @param response        The uncompressed response, with all its headers.
+     * @param functionRequest The request, whose {@code Accept-Encoding} header is used for the negotiation.
+     * @return The response with its payload compressed when it's larger than {@value #COMPRESSION_THRESHOLD} bytes,
+     *         or the given response if the client accepts no supported encoding.
+     * @throws CityException If the payload can't be compressed.
+     */
+    public static Message<String> compress(Message<String> response, FunctionRequest functionRequest) {
+        String encoding = CompressingOutputStream.negotiate(functionRequest.header(HttpHeaders.ACCEPT_ENCODING));
+        if (Objects.isNull(encoding) || Boolean.TRUE.equals(response.getHeaders().get(LAMBDA_IS_BASE64_ENCODED))) {
+            return response;
+        }
+        CompressingOutputStream outputStream = new CompressingOutputStream(encoding, COMPRESSION_THRESHOLD);
+        try (outputStream) {
+            outputStream.write(response.getPayload().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException exception) {
+            throw new CityException("Error compressing response body.", ErrorCode.INTERNAL_002,
+                Objects.isNull(functionRequest.requestContext()) ? null : functionRequest.requestContext().requestId(),
+                exception);
+        }
+        return withEncoding(MessageBuilder.withPayload(outputStream.payload()).copyHeaders(response.getHeaders()),
+            outputStream, encoding);
+    }
+
+    /**
+     * Reverts the compression of a response built by {@link #success(Object, FunctionRequest)}: the payload is
+     * decoded and decompressed, and the {@code Content-Encoding} and {@value #LAMBDA_IS_BASE64_ENCODED} headers
+     * are removed. Other headers, such as {@code Vary} and {@code ETag}, are kept.
+     *
+     * @param response The response, compressed or not.
+     * @return The uncompressed response, or the given response if it isn't compressed.
+     * @throws CityException If the payload isn't valid for its content encoding.
+     */
+    public static Message<String> decompress(Message<String> response) {
+        Object encoding = response.getHeaders().get(HttpHeaders.CONTENT_ENCODING);
+        if (!Boolean.TRUE.equals(response.getHeaders().get(LAMBDA_IS_BASE64_ENCODED))
+            || !(CompressingOutputStream.GZIP.equals(encoding) || CompressingOutputStream.DEFLATE.equals(encoding))) {
+            return response;
+        }
+        InputStream decoded = new ByteArrayInputStream(Base64.getDecoder().decode(response.getPayload()));
+        try (InputStream inputStream = CompressingOutputStream.GZIP.equals(encoding)
+            ? new GZIPInputStream(decoded) : new InflaterInputStream(decoded)) {
+            return MessageBuilder.withPayload(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8))
+                .copyHeaders(response.getHeaders())
+                .removeHeaders(HttpHeaders.CONTENT_ENCODING, LAMBDA_IS_BASE64_ENCODED)
+                .build();
+        } catch (IOException exception) {
+            throw new CityException("Error decompressing " + encoding + " response body.", ErrorCode.INTERNAL_002,
+                exception);
+        }
+    }
+
+    /**
+     * Constructs a conditional success response: the body is serialized and its entity tag computed, and when
+     * the request already holds that representation, a {@code 304 Not Modified} response without body is
+     * returned instead. Otherwise, the response carries the entity tag in its {@code ETag} header.
+     *
+     * @param body            The body of the response to be serialized into JSON.
+     * @param functionRequest The request, whose {@code If-None-Match} header is compared with the entity tag.
+     * @return A success response with an {@code ETag} header, or a {@code 304 Not Modified} response.
+     * @throws CityException If an error occurs during JSON serialization of the body.
+     */
+    public static Message<String> conditional(Object body, FunctionRequest functionRequest) {
+        String payload = success(body).getPayload();
+        String etag = etag(payload);
+        if (functionRequest.matchesETag(etag)) {
+            return notModified(etag);
+        }
+        return successWithETag(payload, etag);
+    }
+
+    /**
+     * Constructs a success response message from an already serialized JSON body and its entity tag,
+     * e.g., a body cached with its tag by an {@link hiperium.city.functions.common.cache.ETagCache}.
+     *
+     * @param json The serialized JSON body.
+     * @param etag The entity tag of the body.
+     * @return A {@code Message<String>} containing the JSON payload, its content type and {@code ETag} headers.
+     */
+    public static Message<String> successWithETag(String json, String etag) {
+        return MessageBuilder
+            .withPayload(json)
+            .setHeader(LAMBDA_STATUS_CODE, HttpStatus.OK.value())
+            .setHeader(HttpHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+            .setHeader(HttpHeaders.ETAG, etag)
+            .build();
+    }
+
+    /**
+     * Constructs a {@code 304 Not Modified} response message, without body.
+     *
+     * @param etag The entity tag of the representation the client already holds.
+     * @return A {@code Message<String>} with an empty payload and the {@code ETag} header.
+     */
+    public static Message<String> notModified(String etag) {
+        return MessageBuilder
+            .withPayload("")
+            .setHeader(LAMBDA_STATUS_CODE, HttpStatus.NOT_MODIFIED.value())
+            .setHeader(HttpHeaders.ETAG, etag)
+            .build();
+    }
+
+    /**
+     * Computes a strong entity tag for a serialized body, from its 64-bit FNV-1a hash. The hash is cheap and
+     * doesn't allocate, but it isn't cryptographic: it identifies versions of a resource, it doesn't protect them.
+     *
+     * @param payload The serialized body.
+     * @return The quoted entity tag.
+     */
+    public static String etag(String payload) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int index = 0; index < payload.length(); index++) {
+            hash ^= payload.charAt(index);
+            hash *= FNV_PRIME;
+        }
+        return '"' + Long.toHexString(hash) + '"';
+    }
+
+    /**
+     * Constructs a success response message in the format of the request: an {@link InvocationEnvelope} when
+     * the request content type is {@value InvocationEnvelope#CONTENT_TYPE}, or a plain JSON body otherwise.
+     *
+     * @param body        The body of the response to be serialized into JSON.
+     * @param contentType The content type of the request, see {@link DeserializerUtil#contentType}.
+     * @param requestId   The request ID carried by the response envelope.
+     * @return A {@code Message<String>} containing the serialized JSON payload and its content type header.
+     * @throws CityException If an error occurs during JSON serialization of the body.
+     */
+    public static Message<String> success(Object body, String contentType, String requestId) {
+        if (!InvocationEnvelope.isEnvelope(contentType)) {
+            return success(body);
         }
+        return envelope(new InvocationEnvelope<>(requestId, null, body))
+            .setHeader(LAMBDA_STATUS_CODE, HttpStatus.OK.value())
+            .build();
+    }
+
+    /**
+     * Constructs the message used to invoke another city function with an {@link InvocationEnvelope}, instead of
+     * an API Gateway event. The routing key is also set in the {@value FunctionsUtil#ROUTING_PARAMETER} header.
+     *
+     * @param requestId  The request ID of the original request.
+     * @param routingKey The name of the target function.
+     * @param body       The body of the invocation, serialized as a nested JSON object.
+     * @return A {@code Message<String>} containing the serialized envelope and its content type header.
+     * @throws CityException If an error occurs during JSON serialization of the body.
+     */
+    public static Message<String> invocation(String requestId, String routingKey, Object body) {
+        return envelope(new InvocationEnvelope<>(requestId, routingKey, body))
+            .setHeader(FunctionsUtil.ROUTING_PARAMETER, routingKey)
+            .build();
     }
 
     /**
      * Constructs an error response message containing details about a CityException.
-     * This method formats the exception data into a structured JSON payload and adds the necessary headers.
+     * The {@link ErrorDetails} payload is rendered from a template prepared for each {@link ErrorCode}, and
+     * rendering never fails, so an error response is always available.
      *
      * @param exception The CityException containing error details such as the error code, description, and request ID.
      * @return A Message object with a JSON payload of error details and relevant HTTP headers.
-     * @throws CityException If there is an error serializing the ErrorDetails object into a JSON string.
      */
     public static Message<String> error(CityException exception) {
-        ErrorDetails errorDetails = new ErrorDetails(
-            exception.getCode().name(),
-            exception.getCode().getDescription(),
-            exception.getMessage(),
-            ZonedDateTime.now(),
-            exception.getRequestId());
-
+        long start = System.nanoTime();
+        FunctionsMetrics.recordError(exception.getCode());
         try {
             return MessageBuilder
-                .withPayload(FunctionsUtil.OBJECT_MAPPER.writeValueAsString(errorDetails))
+                .withPayload(ErrorBodyWriter.render(exception.getCode(), exception.getMessage(), ZonedDateTime.now(),
+                    exception.getRequestId()))
                 .setHeader(LAMBDA_STATUS_CODE, exception.getCode().getHttpStatus())
                 .setHeader(HttpHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
                 .build();
-        } catch (JsonProcessingException e) {
-            throw new CityException("Error serializing response error details: " + errorDetails,
-                ErrorCode.INTERNAL_002, exception);
+        } finally {
+            FunctionsMetrics.SERIALIZATION.recordSince(start);
+        }
+    }
+
+    private static Message<String> withEncoding(final MessageBuilder<String> builder,
+                                                final CompressingOutputStream outputStream,
+                                                final String encoding) {
+        builder.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .setHeader(LAMBDA_IS_BASE64_ENCODED, outputStream.isCompressed());
+        if (outputStream.isCompressed()) {
+            builder.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        return builder.build();
+    }
+
+    private static MessageBuilder<String> envelope(InvocationEnvelope<?> envelope) {
+        long start = System.nanoTime();
+        try {
+            return MessageBuilder
+                .withPayload(FunctionsUtil.OBJECT_MAPPER.writeValueAsString(envelope))
+                .setHeader(HttpHeaders.CONTENT_TYPE, InvocationEnvelope.CONTENT_TYPE);
+        } catch (JsonProcessingException exception) {
+            throw new CityException("Error serializing invocation envelope: " + envelope, ErrorCode.INTERNAL_002,
+                envelope.requestId(), exception);
+        } finally {
+            FunctionsMetrics.SERIALIZATION.recordSince(start);
         }
     }
 }
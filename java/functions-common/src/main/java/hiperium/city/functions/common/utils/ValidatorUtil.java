@@ -0,0 +1,46 @@
+package hiperium.city.functions.common.utils;
+
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The ValidatorUtil class provides utility methods for validating request objects
+ * using Jakarta Bean Validation, converting any constraint violation into a {@link ValidationException}.
+ */
+public final class ValidatorUtil {
+
+    private ValidatorUtil() {
+        throw new UnsupportedOperationException("Utility classes should not be instantiated.");
+    }
+
+    /**
+     * Validates the given object against its bean validation constraints.
+     *
+     * @param validator The bean validator used to check the object constraints.
+     * @param object    The object to validate.
+     * @param requestId The request ID used to trace a validation failure.
+     * @param <T>       The type of the object to validate.
+     * @throws ValidationException If the object violates any of its constraints. The exception message
+     *                             contains the messages of all violations, in alphabetical order.
+     */
+    public static <T> void validate(final Validator validator, final T object, final String requestId) {
+        long start = System.nanoTime();
+        try {
+            Set<ConstraintViolation<T>> violations = validator.validate(object);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" "));
+                throw new ValidationException(message, requestId);
+            }
+        } finally {
+            FunctionsMetrics.VALIDATION.recordSince(start);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package hiperium.city.functions.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import hiperium.city.functions.common.requests.CityIdRequest;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
+import hiperium.city.functions.common.requests.SqsBatchRequest;
+import hiperium.city.functions.common.responses.ErrorDetails;
+import hiperium.city.functions.common.responses.SqsBatchResponse;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeImageMetadataTest {
+
+    private static final String REFLECT_CONFIG_PATH =
+        "META-INF/native-image/city.hiperium/functions-common/reflect-config.json";
+
+    @Test
+    @DisplayName("Reflection metadata registers the request and response records")
+    void givenReflectConfig_whenReadIt_thenContainsRequestAndResponseRecords() throws IOException {
+        List<String> registeredClasses = new ArrayList<>();
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(REFLECT_CONFIG_PATH)) {
+            assertThat(inputStream).isNotNull();
+            for (JsonNode entry : FunctionsUtil.OBJECT_MAPPER.readTree(inputStream)) {
+                registeredClasses.add(entry.get("name").asText());
+            }
+        }
+
+        assertThat(registeredClasses).containsExactlyInAnyOrder(
+            FunctionRequest.class.getName(),
+            FunctionRequest.RequestContext.class.getName(),
+            FunctionRequest.RequestContext.Http.class.getName(),
+            CityIdRequest.class.getName(),
+            InvocationEnvelope.class.getName(),
+            ErrorDetails.class.getName(),
+            SqsBatchRequest.class.getName(),
+            SqsBatchRequest.SqsMessage.class.getName(),
+            SqsBatchResponse.class.getName(),
+            SqsBatchResponse.BatchItemFailure.class.getName());
+    }
+}
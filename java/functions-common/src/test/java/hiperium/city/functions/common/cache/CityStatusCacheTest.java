@@ -0,0 +1,141 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.enums.RecordStatus;
+import hiperium.city.functions.common.exceptions.InactiveCityException;
+import hiperium.city.functions.common.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CityStatusCacheTest {
+
+    private static final String CITY_ID = "a0ecb466-7ef5-47bf-a1ca-12f9f9328528";
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("Cached status is served without loading it again")
+    void givenCachedStatus_whenGetStatus_thenLoaderIsCalledOnce() {
+        CityStatusCache cache = this.createCache((cityId, requestId) -> RecordStatus.ACTIVE, 10);
+
+        cache.verifyActive(CITY_ID, "request-1");
+        cache.verifyActive(CITY_ID, "request-2");
+
+        assertThat(this.loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Expired status is loaded again")
+    void givenExpiredStatus_whenGetStatus_thenStatusIsReloaded() {
+        CityStatusCache cache = this.createCache((cityId, requestId) -> RecordStatus.ACTIVE, 10);
+        cache.getStatus(CITY_ID, "request-1");
+
+        this.ticker.addAndGet(Duration.ofMinutes(6).toNanos());
+        cache.getStatus(CITY_ID, "request-2");
+
+        assertThat(this.loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Status older than the refresh period is served and refreshed ahead")
+    void givenStaleStatus_whenGetStatus_thenServesCachedStatusAndRefreshesIt() {
+        AtomicInteger calls = new AtomicInteger();
+        CityStatusCache cache = this.createCache((cityId, requestId) ->
+            calls.getAndIncrement() == 0 ? RecordStatus.ACTIVE : RecordStatus.INACTIVE, 10);
+        cache.getStatus(CITY_ID, "request-1");
+
+        this.ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        assertThat(cache.getStatus(CITY_ID, "request-2")).isEqualTo(RecordStatus.ACTIVE);
+        assertThat(cache.getStatus(CITY_ID, "request-3")).isEqualTo(RecordStatus.INACTIVE);
+        assertThatThrownBy(() -> cache.verifyActive(CITY_ID, "request-4"))
+            .isInstanceOf(InactiveCityException.class);
+    }
+
+    @Test
+    @DisplayName("Missing cities are cached for the negative time to live")
+    void givenMissingCity_whenGetStatus_thenNotFoundIsCached() {
+        CityStatusCache cache = this.createCache((cityId, requestId) -> {
+            throw new ResourceNotFoundException("City not found: " + cityId, requestId);
+        }, 10);
+
+        assertThatThrownBy(() -> cache.getStatus(CITY_ID, "request-1"))
+            .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> cache.getStatus(CITY_ID, "request-2"))
+            .isInstanceOf(ResourceNotFoundException.class)
+            .extracting("requestId").isEqualTo("request-2");
+        assertThat(this.loads).hasValue(1);
+
+        this.ticker.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThatThrownBy(() -> cache.getStatus(CITY_ID, "request-3"))
+            .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(this.loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Cache size is bounded by evicting the least recently used entries")
+    void givenFullCache_whenLoadNewCity_thenLeastRecentlyUsedEntryIsEvicted() {
+        CityStatusCache cache = this.createCache((cityId, requestId) -> RecordStatus.ACTIVE, 2);
+
+        for (int index = 0; index < 3; index++) {
+            cache.getStatus("city-" + index, "request");
+            this.ticker.incrementAndGet();
+        }
+        cache.getStatus("city-2", "request");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(this.loads).hasValue(3);
+        cache.getStatus("city-0", "request");
+        assertThat(this.loads).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Concurrent misses for the same city are coalesced into a single load")
+    void givenConcurrentMisses_whenGetStatus_thenLoaderIsCalledOnce() throws Exception {
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        CityStatusCache cache = this.createCache((cityId, requestId) -> {
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return RecordStatus.ACTIVE;
+        }, 10);
+
+        List<Future<RecordStatus>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index = 0; index < 20; index++) {
+                results.add(executor.submit(() -> cache.getStatus(CITY_ID, "request")));
+            }
+            Thread.sleep(100L);
+            releaseLoader.countDown();
+            for (Future<RecordStatus> result : results) {
+                assertThat(result.get()).isEqualTo(RecordStatus.ACTIVE);
+            }
+        }
+        assertThat(this.loads).hasValue(1);
+    }
+
+    private CityStatusCache createCache(final CityStatusLoader loader, int maximumSize) {
+        CityStatusLoader countingLoader = (cityId, requestId) -> {
+            this.loads.incrementAndGet();
+            return loader.load(cityId, requestId);
+        };
+        return new CityStatusCache(countingLoader, Duration.ofMinutes(5), Duration.ofMinutes(1),
+            Duration.ofSeconds(30), maximumSize, this.ticker::get, Runnable::run);
+    }
+}
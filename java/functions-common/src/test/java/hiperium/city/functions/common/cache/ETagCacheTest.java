@@ -0,0 +1,71 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagCacheTest {
+
+    private static final String CITY_ID = "a0ecb466-7ef5-47bf-a1ca-12f9f9328528";
+    private static final FunctionRequest UNCONDITIONAL_REQUEST = new FunctionRequest(Map.of(), null, null);
+
+    private final AtomicInteger serializations = new AtomicInteger();
+
+    @Test
+    @DisplayName("Unchanged versions are served from the cache, and as 304 to clients holding them")
+    void givenUnchangedVersion_whenRespond_thenBodyIsNotSerializedAgain() {
+        ETagCache cache = new ETagCache(10);
+
+        Message<String> first = cache.respond(CITY_ID, 1L, UNCONDITIONAL_REQUEST, this::cityData);
+        String etag = (String) first.getHeaders().get(HttpHeaders.ETAG);
+        Message<String> second = cache.respond(CITY_ID, 1L, UNCONDITIONAL_REQUEST, this::cityData);
+        Message<String> conditional = cache.respond(CITY_ID, 1L,
+            new FunctionRequest(Map.of("if-none-match", "W/" + etag), null, null), this::cityData);
+
+        assertThat(this.serializations).hasValue(1);
+        assertThat(second.getPayload()).isEqualTo(first.getPayload());
+        assertThat(conditional.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE)).isEqualTo(304);
+        assertThat(conditional.getPayload()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A new version is serialized again and gets a new entity tag")
+    void givenNewVersion_whenRespond_thenBodyIsSerializedAgain() {
+        ETagCache cache = new ETagCache(10);
+
+        Message<String> first = cache.respond(CITY_ID, 1L, UNCONDITIONAL_REQUEST, this::cityData);
+        Message<String> second = cache.respond(CITY_ID, 2L,
+            new FunctionRequest(Map.of("if-none-match", (String) first.getHeaders().get(HttpHeaders.ETAG)), null, null),
+            this::cityData);
+
+        assertThat(this.serializations).hasValue(2);
+        assertThat(second.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE)).isEqualTo(200);
+        assertThat(second.getHeaders().get(HttpHeaders.ETAG)).isNotEqualTo(first.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("A missing version is cached and compared without failing")
+    void givenNullVersion_whenRespond_thenVersionsAreComparedNullSafely() {
+        ETagCache cache = new ETagCache(10);
+
+        Message<String> first = cache.respond(CITY_ID, null, UNCONDITIONAL_REQUEST, this::cityData);
+        Message<String> second = cache.respond(CITY_ID, null, UNCONDITIONAL_REQUEST, this::cityData);
+        Message<String> third = cache.respond(CITY_ID, 1L, UNCONDITIONAL_REQUEST, this::cityData);
+
+        assertThat(this.serializations).hasValue(2);
+        assertThat(second.getPayload()).isEqualTo(first.getPayload());
+        assertThat(third.getHeaders().get(HttpHeaders.ETAG)).isNotEqualTo(first.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    private Map<String, Object> cityData() {
+        return Map.of("cityId", CITY_ID, "version", this.serializations.incrementAndGet());
+    }
+}
@@ -0,0 +1,167 @@
+package hiperium.city.functions.common.cache;
+
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadThroughCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("Hits and misses are counted")
+    void givenCachedValue_whenGet_thenHitsAndMissesAreCounted() {
+        ReadThroughCache<String, String> cache = this.createCache("Counting", String::toUpperCase, 10);
+
+        assertThat(cache.get("city")).isEqualTo("CITY");
+        assertThat(cache.get("city")).isEqualTo("CITY");
+        assertThat(cache.get("city")).isEqualTo("CITY");
+
+        assertThat(this.loads).hasValue(1);
+        assertThat(cache.missCount()).isEqualTo(1L);
+        assertThat(cache.hitCount()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Hit and miss counts are cumulative across metric publications")
+    void givenPublishedMetrics_whenGet_thenCountsAreNotReset() {
+        ReadThroughCache<String, String> cache = this.createCache("Cumulative", String::toUpperCase, 10);
+        cache.get("city");
+        cache.get("city");
+
+        FunctionsMetrics.reset();
+        cache.get("city");
+
+        assertThat(cache.missCount()).isEqualTo(1L);
+        assertThat(cache.hitCount()).isEqualTo(2L);
+        assertThat(FunctionsMetrics.writer().counter("CumulativeTestCacheHits").count()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Null values returned by the loader are not cached")
+    void givenLoaderReturnsNull_whenGet_thenValueIsNotCached() {
+        ReadThroughCache<String, String> cache = this.createCache("Nulls", key -> null, 10);
+
+        assertThat(cache.get("city")).isNull();
+        assertThat(cache.get("city")).isNull();
+
+        assertThat(this.loads).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Frequently read entries survive a scan of one-time keys")
+    void givenHotEntry_whenScanOfNewKeys_thenHotEntryIsKept() {
+        ReadThroughCache<String, String> cache = this.createCache("Segmented", String::toUpperCase, 5);
+        cache.get("hot");
+        cache.get("hot");
+
+        for (int index = 0; index < 20; index++) {
+            cache.get("scan-" + index);
+        }
+
+        assertThat(cache.size()).isEqualTo(5);
+        assertThat(cache.evictionCount()).isEqualTo(16L);
+        int loadsBefore = this.loads.get();
+        assertThat(cache.get("hot")).isEqualTo("HOT");
+        assertThat(this.loads).hasValue(loadsBefore);
+    }
+
+    @Test
+    @DisplayName("Expired entries are loaded again")
+    void givenExpiredEntry_whenGet_thenValueIsReloaded() {
+        ReadThroughCache<String, String> cache = this.createCache("Expiring", String::toUpperCase, 10);
+        cache.get("city");
+
+        this.ticker.addAndGet(Duration.ofMinutes(6).toNanos());
+        cache.get("city");
+
+        assertThat(this.loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Concurrent misses for the same key are coalesced into a single load")
+    void givenConcurrentMisses_whenGet_thenLoaderIsCalledOnce() throws Exception {
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ReadThroughCache<String, String> cache = this.createCache("Coalescing", key -> {
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return key.toUpperCase();
+        }, 10);
+
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index = 0; index < 20; index++) {
+                results.add(executor.submit(() -> cache.get("city")));
+            }
+            Thread.sleep(100L);
+            releaseLoader.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get()).isEqualTo("CITY");
+            }
+        }
+        assertThat(this.loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Coalesced misses fail with the loader error instead of waiting forever")
+    void givenLoaderThrowsError_whenGet_thenCoalescedCallersFail() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ReadThroughCache<String, String> cache = this.createCache("Failing", key -> {
+            loaderStarted.countDown();
+            try {
+                releaseLoader.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            throw new AssertionError("Loader failed");
+        }, 10);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> cache.get("city"));
+            assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> waiter = executor.submit(() -> cache.get("city"));
+            Thread.sleep(100L);
+            releaseLoader.countDown();
+
+            assertThat(assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)))
+                .hasCauseInstanceOf(AssertionError.class);
+            assertThat(assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS)))
+                .hasCauseInstanceOf(AssertionError.class);
+        }
+        assertThat(this.loads).hasValue(1);
+        assertThrows(AssertionError.class, () -> cache.get("city"));
+        assertThat(this.loads).hasValue(2);
+    }
+
+    private ReadThroughCache<String, String> createCache(final String name,
+                                                         final CacheLoader<String, String> loader,
+                                                         int maximumSize) {
+        CacheLoader<String, String> countingLoader = key -> {
+            this.loads.incrementAndGet();
+            return loader.load(key);
+        };
+        return new ReadThroughCache<>(name + "Test", countingLoader, maximumSize,
+            value -> Duration.ofMinutes(5).toNanos(), Duration.ofMinutes(1), this.ticker::get, Runnable::run);
+    }
+}
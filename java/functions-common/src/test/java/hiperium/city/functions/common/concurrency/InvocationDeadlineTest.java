@@ -0,0 +1,112 @@
+package hiperium.city.functions.common.concurrency;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.enums.InvocationStage;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.responses.ErrorDetails;
+import hiperium.city.functions.common.tracing.InvocationTrace;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvocationDeadlineTest {
+
+    private static final String REQUEST_ID = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+
+    @AfterEach
+    void tearDown() {
+        InvocationDeadline.clear();
+    }
+
+    @Test
+    @DisplayName("Without a started deadline the current deadline is unbounded")
+    void givenNoDeadline_whenCurrent_thenDeadlineIsUnbounded() {
+        InvocationDeadline deadline = InvocationDeadline.current();
+
+        assertThat(deadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+        assertThat(deadline.isExpired()).isFalse();
+    }
+
+    @Test
+    @DisplayName("An expired deadline fails fast with a deadline exceeded error")
+    void givenExpiredDeadline_whenEnsureRemaining_thenDeadlineExceededIsThrown() {
+        InvocationDeadline.start(Duration.ZERO, REQUEST_ID);
+
+        assertThatThrownBy(() -> InvocationDeadline.current().ensureRemaining("BatchGetItem"))
+            .isInstanceOf(DeadlineExceededException.class)
+            .hasMessageStartingWith("BatchGetItem")
+            .extracting("code", "requestId").containsExactly(ErrorCode.INTERNAL_004, REQUEST_ID);
+    }
+
+    @Test
+    @DisplayName("A handler that outlives the deadline gets a 504 error response")
+    void givenSlowHandler_whenRespond_thenGatewayTimeoutResponseIsReturned() throws IOException {
+        InvocationDeadline deadline = InvocationDeadline.start(Duration.ofMillis(50), REQUEST_ID);
+
+        Message<String> response = deadline.respond(() -> {
+            try {
+                Thread.sleep(Duration.ofSeconds(5));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseUtil.success(Map.of("status", "late"));
+        });
+
+        assertThat(response.getHeaders()).containsEntry(ResponseUtil.LAMBDA_STATUS_CODE, 504);
+        ErrorDetails errorDetails = FunctionsUtil.OBJECT_MAPPER.readValue(response.getPayload(), ErrorDetails.class);
+        assertThat(errorDetails.code()).isEqualTo(ErrorCode.INTERNAL_004.name());
+        assertThat(errorDetails.requestId()).isEqualTo(REQUEST_ID);
+    }
+
+    @Test
+    @DisplayName("Handler responses and city exceptions are returned before the deadline")
+    void givenHandler_whenRespond_thenResponseIsReturned() {
+        InvocationDeadline deadline = InvocationDeadline.start(Duration.ofSeconds(5), REQUEST_ID);
+
+        Message<String> success = deadline.respond(() -> {
+            assertThat(InvocationDeadline.current()).isSameAs(deadline);
+            return ResponseUtil.success(Map.of("status", "ok"));
+        });
+        Message<String> error = deadline.respond(() -> {
+            throw new ValidationException("City ID must not be blank.", REQUEST_ID);
+        });
+
+        assertThat(success.getHeaders()).containsEntry(ResponseUtil.LAMBDA_STATUS_CODE, 200);
+        assertThat(error.getHeaders()).containsEntry(ResponseUtil.LAMBDA_STATUS_CODE, 400);
+    }
+
+    @Test
+    @DisplayName("Stages recorded by the handler land in the trace of the calling thread")
+    void givenStartedTrace_whenRespond_thenHandlerStagesAreRecordedInCallerTrace() {
+        InvocationTrace trace = InvocationTrace.start(new FunctionRequest(Map.of(), null, null));
+        InvocationDeadline deadline = InvocationDeadline.start(Duration.ofSeconds(5), REQUEST_ID);
+
+        Message<String> response = deadline.respond(() -> {
+            assertThat(InvocationTrace.current()).isSameAs(trace);
+            InvocationTrace.current().begin(InvocationStage.BUSINESS);
+            try {
+                Thread.sleep(5L);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            InvocationTrace.current().end(InvocationStage.BUSINESS);
+            return ResponseUtil.success(Map.of("status", "ok"));
+        });
+        trace.finish();
+
+        assertThat(response.getHeaders()).containsEntry(ResponseUtil.LAMBDA_STATUS_CODE, 200);
+        assertThat(trace.durationNanos(InvocationStage.BUSINESS)).isGreaterThanOrEqualTo(5_000_000L);
+    }
+}
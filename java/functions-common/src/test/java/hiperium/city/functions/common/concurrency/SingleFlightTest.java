@@ -0,0 +1,147 @@
+package hiperium.city.functions.common.concurrency;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.requests.CityIdRequest;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private static final CityIdRequest CITY_ID_REQUEST = new CityIdRequest("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    @DisplayName("Concurrent identical requests share one computation and its serialized response")
+    void givenConcurrentIdenticalRequests_whenExecute_thenResponseIsShared() throws Exception {
+        SingleFlight<CityIdRequest, Message<String>> singleFlight =
+            new SingleFlight<>("SharedResponseTest", Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Message<String>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int index = 0; index < 10; index++) {
+                results.add(executor.submit(() -> singleFlight.execute(new CityIdRequest(CITY_ID_REQUEST.cityId()),
+                    () -> this.compute(release))));
+            }
+            Thread.sleep(100L);
+            release.countDown();
+            Message<String> first = results.getFirst().get();
+            for (Future<Message<String>> result : results) {
+                assertThat(result.get()).isSameAs(first);
+            }
+        }
+        assertThat(this.computations).hasValue(1);
+        assertThat(singleFlight.coalescedCount()).isEqualTo(9L);
+    }
+
+    @Test
+    @DisplayName("A caller that waits longer than the maximum runs its own computation")
+    void givenSlowComputation_whenWaitIsExceeded_thenCallerComputesOnItsOwn() throws Exception {
+        SingleFlight<CityIdRequest, Message<String>> singleFlight =
+            new SingleFlight<>("BoundedWaitTest", Duration.ofMillis(20));
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Message<String>> leader = executor.submit(() ->
+                singleFlight.execute(CITY_ID_REQUEST, () -> this.compute(release)));
+            Thread.sleep(50L);
+
+            Message<String> follower = singleFlight.execute(CITY_ID_REQUEST, () -> this.compute(new CountDownLatch(0)));
+
+            assertThat(follower.getPayload()).contains("ACTIVE");
+            assertThat(leader.isDone()).isFalse();
+            release.countDown();
+            assertThat(leader.get()).isNotNull();
+        }
+        assertThat(this.computations).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Coalesced callers receive the shared exception with their own request ID")
+    void givenFailingComputation_whenCoalesced_thenExceptionCarriesWaiterRequestId() throws Exception {
+        SingleFlight<CityIdRequest, Message<String>> singleFlight =
+            new SingleFlight<>("SharedFailureTest", Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Message<String>> leader = executor.submit(() -> {
+                InvocationDeadline.start(Duration.ofSeconds(10), "request-1");
+                return singleFlight.execute(CITY_ID_REQUEST, () -> {
+                    started.countDown();
+                    this.compute(release);
+                    throw new ValidationException("City ID must have a valid format.", "request-1");
+                });
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Message<String>> waiter = executor.submit(() -> {
+                InvocationDeadline.start(Duration.ofSeconds(10), "request-2");
+                return singleFlight.execute(CITY_ID_REQUEST, () -> this.compute(new CountDownLatch(0)));
+            });
+            Thread.sleep(100L);
+            release.countDown();
+
+            assertThat(assertThrows(ExecutionException.class, leader::get).getCause())
+                .isInstanceOf(ValidationException.class)
+                .extracting("requestId").isEqualTo("request-1");
+            assertThat(assertThrows(ExecutionException.class, waiter::get).getCause())
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("City ID must have a valid format.")
+                .extracting("code", "requestId").containsExactly(ErrorCode.BUSINESS_001, "request-2");
+        }
+        assertThat(this.computations).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("The coalesced count is cumulative across metric publications")
+    void givenPublishedMetrics_whenCoalescedCount_thenCountIsNotReset() throws Exception {
+        SingleFlight<CityIdRequest, Message<String>> singleFlight =
+            new SingleFlight<>("CumulativeTest", Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Message<String>> leader = executor.submit(() ->
+                singleFlight.execute(CITY_ID_REQUEST, () -> this.compute(release)));
+            Thread.sleep(50L);
+            Future<Message<String>> waiter = executor.submit(() ->
+                singleFlight.execute(CITY_ID_REQUEST, () -> this.compute(release)));
+            Thread.sleep(50L);
+            release.countDown();
+            assertThat(waiter.get()).isSameAs(leader.get());
+        }
+        FunctionsMetrics.reset();
+
+        assertThat(singleFlight.coalescedCount()).isEqualTo(1L);
+        assertThat(FunctionsMetrics.writer().counter("CumulativeTestCoalesced").count()).isZero();
+    }
+
+    private Message<String> compute(final CountDownLatch release) {
+        this.computations.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return ResponseUtil.success(Map.of("status", "ACTIVE"));
+    }
+}
@@ -0,0 +1,171 @@
+package hiperium.city.functions.common.concurrency;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.enums.InvocationStage;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.exceptions.ResourceNotFoundException;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.tracing.InvocationTrace;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskScopeTest {
+
+    private static final String REQUEST_ID = "f47ac10b-58cc-4372-a567-0e02b2c3d479";
+
+    @Test
+    @DisplayName("Subtask results are available after joining the scope")
+    void givenSuccessfulSubtasks_whenJoin_thenResultsAreAvailable() {
+        try (TaskScope scope = TaskScope.open(Duration.ofSeconds(5), REQUEST_ID)) {
+            TaskScope.Subtask<String> city = scope.fork(() -> "Hiperium City");
+            TaskScope.Subtask<Integer> devices = scope.fork(() -> 42);
+
+            scope.join();
+
+            assertThat(city.get()).isEqualTo("Hiperium City");
+            assertThat(devices.get()).isEqualTo(42);
+        }
+    }
+
+    @Test
+    @DisplayName("The first failure cancels its siblings and carries the request ID")
+    void givenFailingSubtask_whenJoin_thenSiblingsAreCancelled() throws InterruptedException {
+        CountDownLatch siblingInterrupted = new CountDownLatch(1);
+        try (TaskScope scope = TaskScope.open(Duration.ofSeconds(5), REQUEST_ID)) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(Duration.ofSeconds(5));
+                } catch (InterruptedException exception) {
+                    siblingInterrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                throw new ResourceNotFoundException("City not found.", REQUEST_ID);
+            });
+
+            assertThatThrownBy(scope::join)
+                .isInstanceOf(ResourceNotFoundException.class)
+                .extracting("requestId").isEqualTo(REQUEST_ID);
+        }
+        assertThat(siblingInterrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Unexpected failures are wrapped in a city exception with the request ID")
+    void givenUnexpectedFailure_whenJoin_thenCityExceptionIsThrown() {
+        try (TaskScope scope = TaskScope.open(Duration.ofSeconds(5), REQUEST_ID)) {
+            scope.fork(() -> {
+                throw new IllegalStateException("Connection reset.");
+            });
+
+            assertThatThrownBy(scope::join)
+                .isInstanceOf(CityException.class)
+                .hasMessageContaining("Connection reset.")
+                .extracting("code", "requestId").containsExactly(ErrorCode.INTERNAL_003, REQUEST_ID);
+        }
+    }
+
+    @Test
+    @DisplayName("Errors thrown by a subtask fail the join and cancel its siblings")
+    void givenSubtaskThrowingError_whenJoin_thenCityExceptionIsThrown() throws InterruptedException {
+        CountDownLatch siblingInterrupted = new CountDownLatch(1);
+        try (TaskScope scope = TaskScope.open(Duration.ofSeconds(5), REQUEST_ID)) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(Duration.ofSeconds(5));
+                } catch (InterruptedException exception) {
+                    siblingInterrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                throw new AssertionError("Broken invariant.");
+            });
+
+            assertThatThrownBy(scope::join)
+                .isInstanceOf(CityException.class)
+                .hasMessageContaining("Broken invariant.")
+                .hasCauseInstanceOf(AssertionError.class)
+                .extracting("code", "requestId").containsExactly(ErrorCode.INTERNAL_003, REQUEST_ID);
+        }
+        assertThat(siblingInterrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Subtasks still running at the deadline are cancelled")
+    void givenSlowSubtask_whenDeadlineIsReached_thenJoinFails() {
+        try (TaskScope scope = TaskScope.open(Duration.ofMillis(50), REQUEST_ID)) {
+            TaskScope.Subtask<String> slow = scope.fork(() -> {
+                Thread.sleep(Duration.ofSeconds(5));
+                return "late";
+            });
+
+            assertThatThrownBy(scope::join)
+                .isInstanceOf(DeadlineExceededException.class)
+                .extracting("code", "requestId").containsExactly(ErrorCode.INTERNAL_004, REQUEST_ID);
+            assertThatThrownBy(slow::get).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("The invocation deadline of the current thread is carried into the subtasks")
+    void givenInvocationDeadline_whenOpen_thenSubtasksSeeIt() {
+        InvocationDeadline deadline = InvocationDeadline.start(Duration.ofSeconds(5), REQUEST_ID);
+        try (TaskScope scope = TaskScope.open()) {
+            TaskScope.Subtask<InvocationDeadline> subtaskDeadline = scope.fork(InvocationDeadline::current);
+
+            scope.join();
+
+            assertThat(subtaskDeadline.get()).isSameAs(deadline);
+        } finally {
+            InvocationDeadline.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("The logging MDC is carried into the subtasks")
+    void givenMdcContext_whenFork_thenSubtaskSeesIt() {
+        MDC.put("requestId", REQUEST_ID);
+        try (TaskScope scope = TaskScope.open(Duration.ofSeconds(5), REQUEST_ID)) {
+            TaskScope.Subtask<String> requestId = scope.fork(() -> MDC.get("requestId"));
+
+            scope.join();
+
+            assertThat(requestId.get()).isEqualTo(REQUEST_ID);
+        } finally {
+            MDC.remove("requestId");
+        }
+    }
+
+    @Test
+    @DisplayName("Stages recorded by a subtask land in the trace of the forking thread")
+    void givenStartedTrace_whenFork_thenSubtaskStagesAreRecordedInCallerTrace() {
+        InvocationTrace trace = InvocationTrace.start(new FunctionRequest(Map.of(), null, null));
+        try (TaskScope scope = TaskScope.open(Duration.ofSeconds(5), REQUEST_ID)) {
+            TaskScope.Subtask<InvocationTrace> subtask = scope.fork(() -> {
+                InvocationTrace.current().begin(InvocationStage.BUSINESS);
+                Thread.sleep(5L);
+                InvocationTrace.current().end(InvocationStage.BUSINESS);
+                return InvocationTrace.current();
+            });
+
+            scope.join();
+
+            assertThat(subtask.get()).isSameAs(trace);
+        } finally {
+            trace.finish();
+        }
+        assertThat(trace.durationNanos(InvocationStage.BUSINESS)).isGreaterThanOrEqualTo(5_000_000L);
+    }
+}
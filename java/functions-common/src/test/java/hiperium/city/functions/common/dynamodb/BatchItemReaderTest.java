@@ -0,0 +1,123 @@
+package hiperium.city.functions.common.dynamodb;
+
+import hiperium.city.functions.common.concurrency.InvocationDeadline;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.requests.CityIdRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchItemReaderTest {
+
+    private static final String TABLE_NAME = "Cities";
+    private static final String KEY_NAME = "id";
+
+    private final List<Integer> requestSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("Items are read in chunks of 100 keys and returned in input order")
+    void givenManyIds_whenReadAll_thenItemsAreReturnedInInputOrder() {
+        BatchItemReader<String> reader = this.createReader(keys -> this.response(keys, List.of()), 5);
+        List<String> ids = new ArrayList<>(IntStream.range(0, 250).mapToObj(index -> "city-" + index).toList());
+        ids.add("city-7");
+
+        List<String> items = reader.readAll(ids, "request");
+
+        assertThat(items).hasSize(251).startsWith("CITY-0", "CITY-1").endsWith("CITY-249", "CITY-7");
+        assertThat(this.requestSizes).containsExactlyInAnyOrder(100, 100, 50);
+    }
+
+    @Test
+    @DisplayName("Unprocessed keys are requested again")
+    void givenUnprocessedKeys_whenReadAll_thenTheyAreRetried() {
+        BatchItemReader<String> reader = this.createReader(keys -> this.requestSizes.size() == 1
+            ? this.response(keys.subList(0, 1), keys.subList(1, keys.size()))
+            : this.response(keys, List.of()), 5);
+
+        List<String> items = reader.readAll(List.of(new CityIdRequest("a"), new CityIdRequest("b"),
+            new CityIdRequest("missing")), CityIdRequest::cityId, "request");
+
+        assertThat(items).containsExactly("A", "B", null);
+        assertThat(this.requestSizes).containsExactly(3, 2);
+    }
+
+    @Test
+    @DisplayName("Keys still unprocessed after the last attempt fail with a city exception")
+    void givenKeysAlwaysUnprocessed_whenReadAll_thenCityExceptionIsThrown() {
+        BatchItemReader<String> reader = this.createReader(keys -> this.response(List.of(), keys), 3);
+
+        assertThatThrownBy(() -> reader.readAll(List.of("a"), "request-1"))
+            .isInstanceOf(CityException.class)
+            .extracting("requestId").isEqualTo("request-1");
+        assertThat(this.requestSizes).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Reads are not started once the invocation deadline has passed")
+    void givenExpiredDeadline_whenReadAll_thenDeadlineExceededIsThrown() {
+        BatchItemReader<String> reader = this.createReader(keys -> this.response(keys, List.of()), 5);
+        InvocationDeadline.start(Duration.ZERO, "request-1");
+        try {
+            assertThatThrownBy(() -> reader.readAll(List.of("a"), "request-1"))
+                .isInstanceOf(DeadlineExceededException.class)
+                .extracting("requestId").isEqualTo("request-1");
+            assertThat(this.requestSizes).isEmpty();
+        } finally {
+            InvocationDeadline.clear();
+        }
+    }
+
+    private BatchItemReader<String> createReader(
+        final Function<List<Map<String, AttributeValue>>, BatchGetItemResponse> responder, int maxAttempts) {
+        DynamoDbAsyncClient client = new DynamoDbAsyncClient() {
+            @Override
+            public CompletableFuture<BatchGetItemResponse> batchGetItem(final BatchGetItemRequest request) {
+                List<Map<String, AttributeValue>> keys = request.requestItems().get(TABLE_NAME).keys();
+                requestSizes.add(keys.size());
+                return CompletableFuture.supplyAsync(() -> responder.apply(keys));
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release.
+            }
+        };
+        return new BatchItemReader<>(client, TABLE_NAME, KEY_NAME, item -> item.get(KEY_NAME).s().toUpperCase(),
+            maxAttempts, Duration.ZERO);
+    }
+
+    private BatchGetItemResponse response(final List<Map<String, AttributeValue>> found,
+                                          final List<Map<String, AttributeValue>> unprocessed) {
+        List<Map<String, AttributeValue>> items = found.stream()
+            .filter(key -> !"missing".equals(key.get(KEY_NAME).s()))
+            .toList();
+        BatchGetItemResponse.Builder builder = BatchGetItemResponse.builder()
+            .responses(Map.of(TABLE_NAME, items));
+        if (!unprocessed.isEmpty()) {
+            builder.unprocessedKeys(Map.of(TABLE_NAME, KeysAndAttributes.builder().keys(unprocessed).build()));
+        }
+        return builder.build();
+    }
+}
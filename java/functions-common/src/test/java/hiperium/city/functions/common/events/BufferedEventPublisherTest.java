@@ -0,0 +1,152 @@
+package hiperium.city.functions.common.events;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.DeadlineExceededException;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BufferedEventPublisherTest {
+
+    private static final String EVENT_BUS_NAME = "city-event-bus";
+
+    private final List<List<EventEntry>> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("Buffered events are packed into requests of at most 10 entries")
+    void givenBufferedEvents_whenFlush_thenRequestsHoldAtMostTenEntries() {
+        BufferedEventPublisher publisher = this.createPublisher(entries -> this.accepted(entries.size()));
+        for (int index = 0; index < 25; index++) {
+            publisher.publish("hiperium.city", "CityUpdated", Map.of("index", index), "request");
+        }
+
+        publisher.flush("request");
+
+        assertThat(this.requests).extracting(List::size).containsExactlyInAnyOrder(10, 10, 5);
+        assertThat(publisher.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Requests are split before they exceed 256 KB")
+    void givenLargeEvents_whenFlush_thenRequestsStayBelowTheSizeLimit() {
+        BufferedEventPublisher publisher = this.createPublisher(entries -> this.accepted(entries.size()));
+        String detail = "x".repeat(100 * 1024);
+        for (int index = 0; index < 5; index++) {
+            publisher.publish(new EventEntry("hiperium.city", "CityUpdated", detail), "request");
+        }
+
+        publisher.flush("request");
+
+        assertThat(this.requests).extracting(List::size).containsExactlyInAnyOrder(2, 2, 1);
+    }
+
+    @Test
+    @DisplayName("Only the rejected entries are sent again")
+    void givenRejectedEntries_whenFlush_thenOnlyThoseEntriesAreRetried() {
+        BufferedEventPublisher publisher = this.createPublisher(entries -> {
+            List<String> errorCodes = new ArrayList<>();
+            for (EventEntry entry : entries) {
+                errorCodes.add(this.requests.size() == 1 && entry.detail().contains("2") ? "ThrottlingException" : null);
+            }
+            return CompletableFuture.completedFuture(errorCodes);
+        });
+        for (int index = 0; index < 4; index++) {
+            publisher.publish(new EventEntry("hiperium.city", "CityUpdated", "{\"index\":" + index + "}"), "request");
+        }
+
+        publisher.flush("request");
+
+        assertThat(this.requests).hasSize(2);
+        assertThat(this.requests.get(1)).extracting(EventEntry::detail).containsExactly("{\"index\":2}");
+    }
+
+    @Test
+    @DisplayName("Entries still rejected after the last attempt fail with a city exception")
+    void givenAlwaysFailingBus_whenFlush_thenCityExceptionIsThrown() {
+        BufferedEventPublisher publisher = this.createPublisher(entries ->
+            CompletableFuture.failedFuture(new IllegalStateException("Service unavailable")));
+        publisher.publish(new EventEntry("hiperium.city", "CityUpdated", "{}"), "request");
+
+        assertThatThrownBy(() -> publisher.flush("request-1"))
+            .isInstanceOf(CityException.class)
+            .extracting("requestId").isEqualTo("request-1");
+        assertThat(this.requests).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("A client throwing before sending the request is retried like a failed request")
+    void givenClientThrowingSynchronously_whenFlush_thenEveryBatchIsStillSent() {
+        AtomicBoolean thrown = new AtomicBoolean();
+        BufferedEventPublisher publisher = this.createPublisher(entries -> {
+            if (thrown.compareAndSet(false, true)) {
+                throw new IllegalStateException("Unable to marshall request");
+            }
+            return this.accepted(entries.size());
+        });
+        for (int index = 0; index < 15; index++) {
+            publisher.publish(new EventEntry("hiperium.city", "CityUpdated", "{\"index\":" + index + "}"), "request");
+        }
+
+        publisher.flush("request");
+
+        assertThat(this.requests).extracting(List::size).containsExactlyInAnyOrder(10, 10, 5);
+    }
+
+    @Test
+    @DisplayName("An event larger than a whole request is rejected with a validation exception")
+    void givenOversizedEvent_whenPublish_thenValidationExceptionIsThrown() {
+        BufferedEventPublisher publisher = this.createPublisher(entries -> this.accepted(entries.size()));
+        EventEntry entry = new EventEntry("hiperium.city", "CityUpdated",
+            "x".repeat(BufferedEventPublisher.MAX_REQUEST_SIZE));
+
+        assertThatThrownBy(() -> publisher.publish(entry, "request-1"))
+            .isInstanceOf(ValidationException.class)
+            .extracting("requestId").isEqualTo("request-1");
+        assertThat(publisher.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("An interrupted flush fails with an internal error instead of a deadline error")
+    void givenInterruptedThread_whenFlush_thenInternalCityExceptionIsThrown() {
+        BufferedEventPublisher publisher = this.createPublisher(entries -> new CompletableFuture<>());
+        publisher.publish(new EventEntry("hiperium.city", "CityUpdated", "{}"), "request");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> publisher.flush("request-1"))
+                .isInstanceOf(CityException.class)
+                .isNotInstanceOf(DeadlineExceededException.class)
+                .extracting("code", "requestId").containsExactly(ErrorCode.INTERNAL_003, "request-1");
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private BufferedEventPublisher createPublisher(
+        final Function<List<EventEntry>, CompletableFuture<List<String>>> responder) {
+        EventBusClient client = (eventBusName, entries) -> {
+            this.requests.add(List.copyOf(entries));
+            return responder.apply(entries);
+        };
+        return new BufferedEventPublisher(client, EVENT_BUS_NAME, 3, Duration.ZERO);
+    }
+
+    private CompletableFuture<List<String>> accepted(int size) {
+        return CompletableFuture.completedFuture(Collections.nCopies(size, null));
+    }
+}
@@ -0,0 +1,117 @@
+package hiperium.city.functions.common.handlers;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.ValidationException;
+import hiperium.city.functions.common.requests.SqsBatchRequest;
+import hiperium.city.functions.common.responses.SqsBatchResponse;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqsBatchHandlerTest {
+
+    @Test
+    @DisplayName("Only retryable failures are reported as batch item failures")
+    void givenMixedResults_whenApply_thenOnlyRetryableFailuresAreReported() {
+        SqsBatchHandler handler = new SqsBatchHandler(4) {
+            @Override
+            protected void processMessage(final SqsBatchRequest.SqsMessage message) {
+                switch (message.body()) {
+                    case "invalid" -> throw new ValidationException("City ID must have a valid format.", "request");
+                    case "internal" -> throw new CityException("DynamoDB unavailable.", ErrorCode.INTERNAL_003);
+                    case "unexpected" -> throw new IllegalStateException("Unexpected.");
+                    default -> {
+                        // Processed successfully.
+                    }
+                }
+            }
+        };
+
+        SqsBatchResponse response = handler.apply(new SqsBatchRequest(List.of(
+            message("1", "ok"), message("2", "internal"), message("3", "invalid"), message("4", "unexpected"))));
+
+        assertThat(response.batchItemFailures())
+            .extracting(SqsBatchResponse.BatchItemFailure::itemIdentifier)
+            .containsExactly("2", "4");
+    }
+
+    @Test
+    @DisplayName("Messages whose processing throws an error are returned to the queue")
+    void givenProcessingError_whenApply_thenMessageIsReportedAsFailure() {
+        SqsBatchHandler handler = new SqsBatchHandler(4) {
+            @Override
+            protected void processMessage(final SqsBatchRequest.SqsMessage message) {
+                switch (message.body()) {
+                    case "assertion" -> throw new AssertionError("Broken invariant.");
+                    case "overflow" -> throw new StackOverflowError();
+                    default -> {
+                        // Processed successfully.
+                    }
+                }
+            }
+        };
+
+        SqsBatchResponse response = handler.apply(new SqsBatchRequest(List.of(
+            message("1", "assertion"), message("2", "ok"), message("3", "overflow"))));
+
+        assertThat(response.batchItemFailures())
+            .extracting(SqsBatchResponse.BatchItemFailure::itemIdentifier)
+            .containsExactly("1", "3");
+    }
+
+    @Test
+    @DisplayName("Messages are processed concurrently up to the configured limit")
+    void givenLargeBatch_whenApply_thenConcurrencyLimitIsRespected() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        SqsBatchHandler handler = new SqsBatchHandler(3) {
+            @Override
+            protected void processMessage(final SqsBatchRequest.SqsMessage message) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20L);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+
+        SqsBatchResponse response = handler.apply(new SqsBatchRequest(
+            IntStream.range(0, 12).mapToObj(index -> message(String.valueOf(index), "ok")).toList()));
+
+        assertThat(response.batchItemFailures()).isEmpty();
+        assertThat(maxInFlight.get()).isBetween(2, 3);
+    }
+
+    @Test
+    @DisplayName("SQS event JSON is deserialized into a batch request")
+    void givenSqsEventJson_whenDeserialize_thenRecordsArePopulated() throws IOException {
+        String json = """
+            {"Records":[{"messageId":"059f36b4-87a3-44ab-83d2-661975830a7d","receiptHandle":"AQEBwJnKyrHigUMZj6rYigCgxlaS3SLy0a",
+            "body":"{\\"cityId\\":\\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\\"}","attributes":{"ApproximateReceiveCount":"1"},
+            "messageAttributes":{},"eventSource":"aws:sqs","eventSourceARN":"arn:aws:sqs:us-east-1:123456789012:city-dlq"}]}
+            """;
+
+        SqsBatchRequest request = FunctionsUtil.OBJECT_MAPPER.readValue(json, SqsBatchRequest.class);
+
+        assertThat(request.records()).singleElement()
+            .satisfies(message -> {
+                assertThat(message.messageId()).isEqualTo("059f36b4-87a3-44ab-83d2-661975830a7d");
+                assertThat(message.attributes()).containsEntry("ApproximateReceiveCount", "1");
+            });
+    }
+
+    private static SqsBatchRequest.SqsMessage message(final String messageId, final String body) {
+        return new SqsBatchRequest.SqsMessage(messageId, "receipt-" + messageId, body, null, null);
+    }
+}
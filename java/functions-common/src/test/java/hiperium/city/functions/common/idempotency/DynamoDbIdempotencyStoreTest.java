@@ -0,0 +1,78 @@
+package hiperium.city.functions.common.idempotency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DynamoDbIdempotencyStoreTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private final Map<String, Map<String, AttributeValue>> table = new HashMap<>();
+
+    @Test
+    @DisplayName("The first stored response wins and is read back until it expires")
+    void givenStoredResponse_whenSaveAgain_thenConditionalWriteKeepsTheFirst() {
+        DynamoDbIdempotencyStore store = new DynamoDbIdempotencyStore(this.stubClient(), "Idempotency", CLOCK);
+        long now = CLOCK.instant().getEpochSecond();
+
+        assertThat(store.saveIfAbsent("key", new StoredResponse(200, Map.of("Content-Type", "application/json"), "{\"a\":1}", "hash", now + 60)))
+            .isTrue();
+        assertThat(store.saveIfAbsent("key", new StoredResponse(200, Map.of("Content-Type", "application/json"), "{\"a\":2}", "hash", now + 60)))
+            .isFalse();
+
+        assertThat(store.find("key")).hasValueSatisfying(response -> {
+            assertThat(response.payload()).isEqualTo("{\"a\":1}");
+            assertThat(response.headers()).containsEntry("Content-Type", "application/json");
+            assertThat(response.requestHash()).isEqualTo("hash");
+        });
+        assertThat(store.find("missing")).isEmpty();
+    }
+
+    private DynamoDbClient stubClient() {
+        return new DynamoDbClient() {
+            @Override
+            public GetItemResponse getItem(final GetItemRequest request) {
+                Map<String, AttributeValue> item = table.get(request.key().get(DynamoDbIdempotencyStore.KEY_ATTRIBUTE).s());
+                return item == null ? GetItemResponse.builder().build() : GetItemResponse.builder().item(item).build();
+            }
+
+            @Override
+            public PutItemResponse putItem(final PutItemRequest request) {
+                String key = request.item().get(DynamoDbIdempotencyStore.KEY_ATTRIBUTE).s();
+                Map<String, AttributeValue> existing = table.get(key);
+                long now = Long.parseLong(request.expressionAttributeValues().get(":now").n());
+                if (existing != null
+                    && Long.parseLong(existing.get(DynamoDbIdempotencyStore.EXPIRES_AT_ATTRIBUTE).n()) > now) {
+                    throw ConditionalCheckFailedException.builder().message("The conditional request failed").build();
+                }
+                table.put(key, request.item());
+                return PutItemResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release.
+            }
+        };
+    }
+}
@@ -0,0 +1,218 @@
+package hiperium.city.functions.common.idempotency;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.exceptions.IdempotencyKeyReusedException;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    @DisplayName("A retried request replays the stored response without running the handler")
+    void givenAnsweredRequest_whenRetried_thenStoredResponseIsReplayed() {
+        Idempotency idempotency = new Idempotency(new InMemoryIdempotencyStore(10, CLOCK), Duration.ofHours(1), CLOCK);
+        FunctionRequest functionRequest = request("request-1", null);
+
+        Message<String> first = idempotency.execute(functionRequest, this::handle);
+        Message<String> replayed = idempotency.execute(functionRequest, this::handle);
+
+        assertThat(this.executions).hasValue(1);
+        assertThat(replayed.getPayload()).isEqualTo(first.getPayload());
+        assertThat(replayed.getHeaders())
+            .containsEntry(ResponseUtil.LAMBDA_STATUS_CODE, 200)
+            .containsEntry(HttpHeaders.CONTENT_TYPE, "application/json")
+            .containsEntry(Idempotency.REPLAYED_HEADER, "true");
+    }
+
+    @Test
+    @DisplayName("The client idempotency key takes precedence over the request ID")
+    void givenIdempotencyKeyHeader_whenRequestIdChanges_thenStoredResponseIsReplayed() {
+        Idempotency idempotency = new Idempotency(new InMemoryIdempotencyStore(10, CLOCK), Duration.ofHours(1), CLOCK);
+
+        idempotency.execute(request("request-1", "order-42"), this::handle);
+        idempotency.execute(request("request-2", "order-42"), this::handle);
+
+        assertThat(this.executions).hasValue(1);
+        assertThat(Idempotency.idempotencyKey(request("request-2", "order-42"))).isEqualTo("POST /cities#order-42");
+    }
+
+    @Test
+    @DisplayName("A key reused by another caller is rejected instead of replaying the stored response")
+    void givenIdempotencyKeyOfAnotherCaller_whenExecute_thenKeyReusedExceptionIsThrown() {
+        Idempotency idempotency = new Idempotency(new InMemoryIdempotencyStore(10, CLOCK), Duration.ofHours(1), CLOCK);
+        idempotency.execute(request("request-1", "order-42", "{}", "user-1"), this::handle);
+
+        assertThatThrownBy(() -> idempotency.execute(request("request-2", "order-42", "{}", "user-2"), this::handle))
+            .isInstanceOf(IdempotencyKeyReusedException.class)
+            .extracting("code", "requestId").containsExactly(ErrorCode.BUSINESS_004, "request-2");
+        assertThat(this.executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("A key reused with a different body is rejected instead of replaying the stored response")
+    void givenIdempotencyKeyWithDifferentBody_whenExecute_thenKeyReusedExceptionIsThrown() {
+        Idempotency idempotency = new Idempotency(new InMemoryIdempotencyStore(10, CLOCK), Duration.ofHours(1), CLOCK);
+        idempotency.execute(request("request-1", "order-42", "{\"amount\":1}", "user-1"), this::handle);
+        idempotency.execute(request("request-2", "order-42", "{\"amount\":1}", "user-1"), this::handle);
+
+        assertThatThrownBy(() -> idempotency.execute(
+            request("request-3", "order-42", "{\"amount\":2}", "user-1"), this::handle))
+            .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(this.executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("A compressed response is stored uncompressed and replayed with the encoding of the retry")
+    void givenCompressedResponse_whenRetriedWithOtherEncoding_thenReplayIsEncodedForTheRetry() throws IOException {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(10, CLOCK);
+        Idempotency idempotency = new Idempotency(store, Duration.ofHours(1), CLOCK);
+        List<String> cities = IntStream.range(0, 500).mapToObj(index -> "city-" + index).toList();
+        String json = FunctionsUtil.OBJECT_MAPPER.writeValueAsString(cities);
+        Supplier<Message<String>> handler = () -> {
+            this.executions.incrementAndGet();
+            return ResponseUtil.success(cities, request("request-1", "order-42", "{}", null, "gzip"));
+        };
+
+        Message<String> first = idempotency.execute(request("request-1", "order-42", "{}", null, "gzip"), handler);
+        Message<String> deflated = idempotency.execute(request("request-2", "order-42", "{}", null, "deflate"), handler);
+        Message<String> plain = idempotency.execute(request("request-3", "order-42", "{}", null, null), handler);
+
+        assertThat(this.executions).hasValue(1);
+        assertThat(first.getHeaders()).containsEntry(HttpHeaders.CONTENT_ENCODING, "gzip");
+        assertThat(store.find(Idempotency.idempotencyKey(request("request-1", "order-42")))).hasValueSatisfying(
+            stored -> {
+                assertThat(stored.payload()).isEqualTo(json);
+                assertThat(stored.headers())
+                    .containsEntry(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .doesNotContainKeys(HttpHeaders.CONTENT_ENCODING, ResponseUtil.LAMBDA_IS_BASE64_ENCODED);
+            });
+        assertThat(deflated.getHeaders())
+            .containsEntry(HttpHeaders.CONTENT_ENCODING, "deflate")
+            .containsEntry(ResponseUtil.LAMBDA_IS_BASE64_ENCODED, true)
+            .containsEntry(Idempotency.REPLAYED_HEADER, "true");
+        try (InputStream inputStream = new InflaterInputStream(
+            new ByteArrayInputStream(Base64.getDecoder().decode(deflated.getPayload())))) {
+            assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(json);
+        }
+        assertThat(plain.getPayload()).isEqualTo(json);
+        assertThat(plain.getHeaders())
+            .doesNotContainKeys(HttpHeaders.CONTENT_ENCODING, ResponseUtil.LAMBDA_IS_BASE64_ENCODED)
+            .containsEntry(HttpHeaders.CONTENT_TYPE, "application/json");
+    }
+
+    @Test
+    @DisplayName("Every response header, such as the entity tag, is replayed")
+    void givenResponseWithETag_whenRetried_thenETagIsReplayed() {
+        Idempotency idempotency = new Idempotency(new InMemoryIdempotencyStore(10, CLOCK), Duration.ofHours(1), CLOCK);
+        FunctionRequest functionRequest = request("request-1", null);
+        Supplier<Message<String>> handler = () -> {
+            this.executions.incrementAndGet();
+            return ResponseUtil.conditional(Map.of("cityId", "a0ecb466-7ef5-47bf-a1ca-12f9f9328528"), functionRequest);
+        };
+
+        Message<String> first = idempotency.execute(functionRequest, handler);
+        Message<String> replayed = idempotency.execute(functionRequest, handler);
+
+        assertThat(this.executions).hasValue(1);
+        assertThat(replayed.getHeaders()).containsEntry(HttpHeaders.ETAG, first.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Server error responses are not stored")
+    void givenServerError_whenRetried_thenHandlerRunsAgain() {
+        Idempotency idempotency = new Idempotency(new InMemoryIdempotencyStore(10, CLOCK), Duration.ofHours(1), CLOCK);
+        FunctionRequest functionRequest = request("request-1", null);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            idempotency.execute(functionRequest, () -> {
+                this.executions.incrementAndGet();
+                return ResponseUtil.error(new CityException("DynamoDB unavailable.", ErrorCode.INTERNAL_003));
+            });
+        }
+
+        assertThat(this.executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("The in-memory store evicts the least recently used responses and ignores expired ones")
+    void givenInMemoryStore_whenFullOrExpired_thenResponsesAreDropped() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(2, CLOCK);
+        long now = CLOCK.instant().getEpochSecond();
+        store.saveIfAbsent("a", new StoredResponse(200, null, "a", "hash", now + 60));
+        store.saveIfAbsent("b", new StoredResponse(200, null, "b", "hash", now + 60));
+        store.find("a");
+        store.saveIfAbsent("c", new StoredResponse(200, null, "c", "hash", now));
+
+        assertThat(store.find("a")).isPresent();
+        assertThat(store.find("b")).isEmpty();
+        assertThat(store.find("c")).isEmpty();
+        assertThat(store.saveIfAbsent("a", new StoredResponse(200, null, "other", "hash", now + 60))).isFalse();
+    }
+
+    private Message<String> handle() {
+        this.executions.incrementAndGet();
+        return ResponseUtil.success(Map.of("cityId", "a0ecb466-7ef5-47bf-a1ca-12f9f9328528"));
+    }
+
+    private static FunctionRequest request(final String requestId, final String idempotencyKey) {
+        return request(requestId, idempotencyKey, "{}", null);
+    }
+
+    private static FunctionRequest request(final String requestId,
+                                           final String idempotencyKey,
+                                           final String body,
+                                           final String subject) {
+        return request(requestId, idempotencyKey, body, subject, null);
+    }
+
+    private static FunctionRequest request(final String requestId,
+                                           final String idempotencyKey,
+                                           final String body,
+                                           final String subject,
+                                           final String acceptEncoding) {
+        Map<String, Object> authorizer = subject == null ? null
+            : Map.of("jwt", Map.of("claims", Map.of("iss", "https://issuer", "sub", subject, "exp", requestId)));
+        Map<String, String> headers = new HashMap<>();
+        if (idempotencyKey != null) {
+            headers.put("idempotency-key", idempotencyKey);
+        }
+        if (acceptEncoding != null) {
+            headers.put("accept-encoding", acceptEncoding);
+        }
+        return new FunctionRequest(
+            headers,
+            new FunctionRequest.RequestContext("123456789012", "api-id", null, requestId,
+                "POST /cities", "$default", null, authorizer),
+            body);
+    }
+}
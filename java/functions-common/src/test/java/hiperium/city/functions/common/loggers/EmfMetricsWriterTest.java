@@ -0,0 +1,112 @@
+package hiperium.city.functions.common.loggers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import hiperium.city.functions.common.metrics.MetricCounter;
+import hiperium.city.functions.common.metrics.MetricTimer;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmfMetricsWriterTest {
+
+    private final EmfMetricsWriter writer = new EmfMetricsWriter("Test\"Namespace",
+        EmfDimensionSet.of(Map.of("FunctionName", "city-\"read\"")));
+
+    @Test
+    @DisplayName("Render aggregated counters and distributions as a single EMF document")
+    void givenAggregatedMetrics_whenRender_thenReturnsSingleEmfDocument() throws IOException {
+        for (int index = 0; index < 1_000; index++) {
+            this.writer.count("CityEvents");
+        }
+        this.writer.timer("BusinessTime").recordNanos(2_000_000L);
+
+        JsonNode document = FunctionsUtil.OBJECT_MAPPER.readTree(this.writer.renderThenReset(1000L));
+
+        JsonNode directive = document.get("_aws").get("CloudWatchMetrics").get(0);
+        assertThat(directive.get("Namespace").asText()).isEqualTo("Test\"Namespace");
+        assertThat(directive.get("Dimensions").get(0).get(0).asText()).isEqualTo("FunctionName");
+        assertThat(directive.get("Metrics")).hasSize(2);
+        assertThat(document.get("FunctionName").asText()).isEqualTo("city-\"read\"");
+        assertThat(document.get("CityEvents").asLong()).isEqualTo(1_000L);
+        assertThat(document.get("BusinessTime").get("Sum").asLong()).isEqualTo(2_000L);
+        assertThat(this.writer.renderThenReset(2000L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Distributions never exceed the values accepted by CloudWatch")
+    void givenWideDistribution_whenRender_thenValuesAreCompacted() throws IOException {
+        MetricTimer timer = this.writer.timer("WideTime");
+        for (long micros = 1L; micros < 100_000_000L; micros = micros * 11 / 10 + 1) {
+            timer.recordNanos(micros * 1_000L);
+        }
+
+        JsonNode distribution = FunctionsUtil.OBJECT_MAPPER.readTree(this.writer.renderThenReset(1000L))
+            .get("WideTime");
+
+        long countsTotal = 0L;
+        for (JsonNode count : distribution.get("Counts")) {
+            countsTotal += count.asLong();
+        }
+        assertThat(distribution.get("Values").size()).isLessThanOrEqualTo(EmfMetricsWriter.MAX_DISTRIBUTION_VALUES);
+        assertThat(countsTotal).isEqualTo(distribution.get("Count").asLong());
+    }
+
+    @Test
+    @DisplayName("Writer memory is bounded by the maximum number of metrics")
+    void givenFullWriter_whenRegisterMetric_thenReturnsDetachedMetric() throws IOException {
+        for (int index = 0; index < EmfMetricsWriter.MAX_METRICS; index++) {
+            this.writer.count("Metric" + index);
+        }
+
+        MetricCounter overflow = this.writer.counter("OneTooMany");
+        overflow.increment();
+
+        JsonNode document = FunctionsUtil.OBJECT_MAPPER.readTree(this.writer.renderThenReset(1000L));
+        assertThat(document.get("_aws").get("CloudWatchMetrics").get(0).get("Metrics"))
+            .hasSize(EmfMetricsWriter.MAX_METRICS);
+        assertThat(document.has("OneTooMany")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Discarded metrics are logged only once per writer")
+    void givenFullWriter_whenRegisterMetricsRepeatedly_thenOverflowIsLoggedOnce() {
+        Logger writerLogger = (Logger) LoggerFactory.getLogger(EmfMetricsWriter.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        writerLogger.addAppender(appender);
+        try {
+            for (int index = 0; index < EmfMetricsWriter.MAX_METRICS; index++) {
+                this.writer.count("Metric" + index);
+            }
+            for (int index = 0; index < 1_000; index++) {
+                this.writer.count("OneTooMany");
+                this.writer.timer("TwoTooMany").recordNanos(1_000L);
+            }
+        } finally {
+            writerLogger.detachAppender(appender);
+        }
+
+        assertThat(appender.list)
+            .filteredOn(event -> event.getLevel() == Level.WARN)
+            .hasSize(1);
+    }
+
+    @Test
+    @DisplayName("A metric name can't be registered with two different types")
+    void givenCounter_whenRegisterTimerWithSameName_thenThrowsException() {
+        this.writer.counter("Duplicated");
+
+        assertThatThrownBy(() -> this.writer.timer("Duplicated")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,64 @@
+package hiperium.city.functions.common.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.loggers.EmfMetricsWriter;
+import hiperium.city.functions.common.loggers.HiperiumLogger;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FunctionsMetricsTest {
+
+    private final Logger writerLogger = (Logger) LoggerFactory.getLogger(EmfMetricsWriter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        FunctionsMetrics.reset();
+        this.appender.start();
+        this.writerLogger.addAppender(this.appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.writerLogger.detachAppender(this.appender);
+    }
+
+    @Test
+    @DisplayName("Publish recorded metrics as an EMF log event")
+    void givenRecordedMetrics_whenPublish_thenLogsEmfDocument() throws IOException {
+        FunctionsMetrics.DESERIALIZATION.recordNanos(1_500_000L);
+        FunctionsMetrics.recordError(ErrorCode.BUSINESS_002);
+        FunctionsMetrics.recordError(ErrorCode.BUSINESS_002);
+
+        FunctionsMetrics.publish();
+
+        assertThat(this.appender.list).hasSize(1);
+        ILoggingEvent event = this.appender.list.getFirst();
+        assertThat(event.getMarkerList()).contains(HiperiumLogger.EMF_MARKER);
+        JsonNode document = FunctionsUtil.OBJECT_MAPPER.readTree(event.getFormattedMessage());
+        assertThat(document.get("_aws").get("CloudWatchMetrics").get(0).get("Metrics")).hasSize(2);
+        assertThat(document.get("FunctionName").asText()).isNotBlank();
+        assertThat(document.get("DeserializationTime").get("Max").asLong()).isEqualTo(1500L);
+        assertThat(document.get("Errors.BUSINESS_002").asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Publish nothing when no metric was recorded")
+    void givenNoRecordedMetrics_whenPublish_thenNothingIsLogged() {
+        FunctionsMetrics.publish();
+
+        assertThat(this.appender.list).isEmpty();
+    }
+}
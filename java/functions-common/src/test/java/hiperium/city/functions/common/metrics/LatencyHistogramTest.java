@@ -0,0 +1,39 @@
+package hiperium.city.functions.common.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Bucket values stay within the histogram precision")
+    void givenRecordedValues_whenComputeBucketValue_thenRelativeErrorIsBounded() {
+        for (long value = 1L; value < 1_000_000_000_000L; value = value * 3 + 1) {
+            long bucketValue = LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(value));
+
+            assertThat((double) bucketValue).isCloseTo(value, within(value * 0.07));
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshot aggregates values and resets the histogram")
+    void givenRecordedValues_whenSnapshotThenReset_thenReturnsSummaryAndResets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1L; value <= 100L; value++) {
+            histogram.record(value);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotThenReset();
+
+        assertThat(snapshot.count()).isEqualTo(100L);
+        assertThat(snapshot.sum()).isEqualTo(5050L);
+        assertThat(snapshot.min()).isEqualTo(1L);
+        assertThat(snapshot.max()).isEqualTo(100L);
+        assertThat((double) snapshot.percentile(50.0)).isCloseTo(50.0, within(4.0));
+        assertThat((double) snapshot.percentile(99.0)).isCloseTo(99.0, within(7.0));
+        assertThat(histogram.snapshotThenReset().isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package hiperium.city.functions.common.priming;
+
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import hiperium.city.functions.common.metrics.FunctionsMetrics;
+import hiperium.city.functions.common.requests.CityIdRequest;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FunctionsPrimerTest {
+
+    private static final String PRIMING_CITY_ID = "a0ecb466-7ef5-47bf-a1ca-12f9f9328528";
+    private static final String FIXTURE_CITY_ID = "f3b5c2a1-9d8e-4c7b-a6f5-e4d3c2b1a098";
+
+    @Test
+    @DisplayName("Prime pipeline with valid and invalid fixtures")
+    void givenMixedFixtures_whenPrime_thenOnlyValidFixturesReachTheValidator() {
+        List<Object> validated = new ArrayList<>();
+        List<String> fixtures = List.of(
+            "{\"requestContext\":{\"requestId\":\"id\"},\"body\":\"{\\\"cityId\\\":\\\"" + FIXTURE_CITY_ID + "\\\"}\"}",
+            "{\"requestContext\":{\"requestId\":\"id\"},\"body\":\"Hello from Lambda\"}",
+            "{\"requestContext\":{\"requestId\":\"id\"},\"body\":\"\"}",
+            "{ invalid json }");
+
+        FunctionsPrimer.prime(recordingValidator(validated), fixtures);
+
+        assertThat(validated)
+            .extracting(request -> ((CityIdRequest) request).cityId())
+            .containsExactly(PRIMING_CITY_ID, FIXTURE_CITY_ID);
+    }
+
+    @Test
+    @DisplayName("Prime pipeline with fixtures directory")
+    void givenFixturesDirectory_whenPrime_thenNonEmptyFixturesAreReplayed(@TempDir Path fixturesDirectory) throws IOException {
+        List<Object> validated = new ArrayList<>();
+        Files.writeString(fixturesDirectory.resolve("valid-request.json"),
+            "{\"requestContext\":{\"requestId\":\"id\"},\"body\":\"{\\\"cityId\\\":\\\"" + FIXTURE_CITY_ID + "\\\"}\"}");
+        Files.writeString(fixturesDirectory.resolve("empty-request.json"), "");
+
+        System.setProperty(FunctionsPrimer.FIXTURES_PROPERTY, fixturesDirectory.toString());
+        try {
+            FunctionsPrimer.prime(recordingValidator(validated));
+        } finally {
+            System.clearProperty(FunctionsPrimer.FIXTURES_PROPERTY);
+        }
+
+        assertThat(validated)
+            .extracting(request -> ((CityIdRequest) request).cityId())
+            .containsExactly(PRIMING_CITY_ID, FIXTURE_CITY_ID);
+    }
+
+    @Test
+    @DisplayName("Prime pipeline warms the serializer cache and resets the metrics")
+    void givenColdSerializerCache_whenPrime_thenSerializersAreCachedAndMetricsAreReset() {
+        DefaultSerializerProvider serializerProvider =
+            (DefaultSerializerProvider) FunctionsUtil.OBJECT_MAPPER.getSerializerProvider();
+        serializerProvider.flushCachedSerializers();
+
+        FunctionsPrimer.prime(null, List.of());
+
+        assertThat(serializerProvider.cachedSerializersCount()).isPositive();
+        assertThat(FunctionsMetrics.DESERIALIZATION.snapshotThenReset().isEmpty()).isTrue();
+        assertThat(FunctionsMetrics.SERIALIZATION.snapshotThenReset().isEmpty()).isTrue();
+    }
+
+    private static Validator recordingValidator(final List<Object> validated) {
+        return (Validator) Proxy.newProxyInstance(Validator.class.getClassLoader(), new Class<?>[]{Validator.class},
+            (proxy, method, arguments) -> {
+                if ("validate".equals(method.getName())) {
+                    validated.add(arguments[0]);
+                    return Set.of();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
@@ -0,0 +1,111 @@
+package hiperium.city.functions.common.routing;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.requests.CityIdRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
+import hiperium.city.functions.common.utils.DeserializerUtil;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FunctionDispatcherTest {
+
+    private static final String CITY_ID = "a0ecb466-7ef5-47bf-a1ca-12f9f9328528";
+    private static final String API_GATEWAY_REQUEST_JSON = """
+        {
+           "headers": {
+             "city-function": "city-name"
+           },
+           "requestContext": {
+             "requestId": "request-id"
+           },
+           "body": "{\\"cityId\\":\\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\\"}"
+        }
+        """;
+
+    private final FunctionDispatcher dispatcher = new FunctionDispatcher(List.of(
+        Route.of("city-name", CityIdRequest.class, CityName.class,
+            (request, requestId) -> new CityName(request.cityId(), "Quito")),
+        Route.of("city-status", CityIdRequest.class, String.class, (request, requestId) -> "ACTIVE")));
+
+    @Test
+    @DisplayName("API Gateway events are routed by the routing header of the event")
+    void givenApiGatewayEvent_whenApply_thenRoutedByEventHeader() {
+        Message<String> response = this.dispatcher.apply(MessageBuilder.withPayload(API_GATEWAY_REQUEST_JSON).build());
+
+        assertThat(response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE)).isEqualTo(200);
+        assertThat(response.getPayload()).isEqualTo("{\"cityId\":\"" + CITY_ID + "\",\"name\":\"Quito\"}");
+    }
+
+    @Test
+    @DisplayName("Invocation envelopes are routed by the message header and answered with an envelope")
+    void givenInvocationEnvelope_whenApply_thenAnsweredWithEnvelope() {
+        Message<String> request = ResponseUtil.invocation("request-id", "city-status", new CityIdRequest(CITY_ID));
+
+        Message<String> response = this.dispatcher.apply(request);
+
+        assertThat(response.getHeaders().get(HttpHeaders.CONTENT_TYPE)).isEqualTo(InvocationEnvelope.CONTENT_TYPE);
+        assertThat(response.getPayload())
+            .isEqualTo("{\"format\":\"hiperium.invocation\",\"requestId\":\"request-id\",\"body\":\"ACTIVE\"}");
+    }
+
+    @Test
+    @DisplayName("Invocation envelopes without headers are detected and routed by their payload")
+    void givenEnvelopeWithoutHeaders_whenApply_thenRoutedByEnvelopeRoutingKey() {
+        String payload = ResponseUtil.invocation("request-id", "city-status", new CityIdRequest(CITY_ID)).getPayload();
+
+        Message<String> response = this.dispatcher.apply(MessageBuilder.withPayload(payload).build());
+
+        assertThat(response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE)).isEqualTo(200);
+        assertThat(response.getHeaders().get(HttpHeaders.CONTENT_TYPE)).isEqualTo(InvocationEnvelope.CONTENT_TYPE);
+        assertThat(response.getPayload()).contains("\"body\":\"ACTIVE\"");
+    }
+
+    @Test
+    @DisplayName("Unknown routing keys are answered with a not found error")
+    void givenUnknownRoutingKey_whenApply_thenNotFound() {
+        Message<String> request = MessageBuilder.withPayload(API_GATEWAY_REQUEST_JSON)
+            .setHeader(FunctionsUtil.ROUTING_PARAMETER, "city-weather")
+            .build();
+
+        Message<String> response = this.dispatcher.apply(request);
+
+        assertThat(response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE))
+            .isEqualTo(ErrorCode.BUSINESS_002.getHttpStatus());
+        assertThat(response.getPayload()).contains("request-id");
+    }
+
+    @Test
+    @DisplayName("Events exceeding the parser limits are answered with a validation error")
+    void givenOversizedEventBody_whenApply_thenBadRequest() {
+        String payload = API_GATEWAY_REQUEST_JSON.replace("\"body\": \"",
+            "\"body\": \"" + "a".repeat(DeserializerUtil.MAX_STRING_LENGTH));
+
+        Message<String> response = this.dispatcher.apply(MessageBuilder.withPayload(payload).build());
+
+        assertThat(response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE))
+            .isEqualTo(ErrorCode.BUSINESS_001.getHttpStatus());
+    }
+
+    @Test
+    @DisplayName("Duplicate routing keys are rejected at startup")
+    void givenDuplicateRoutingKeys_whenCreate_thenThrowsException() {
+        List<Route<?, ?>> routes = List.of(
+            Route.of("city-status", CityIdRequest.class, String.class, (request, requestId) -> "ACTIVE"),
+            Route.of("city-status", CityIdRequest.class, String.class, (request, requestId) -> "INACTIVE"));
+
+        assertThrows(IllegalArgumentException.class, () -> new FunctionDispatcher(routes));
+    }
+
+    record CityName(String cityId, String name) {
+    }
+}
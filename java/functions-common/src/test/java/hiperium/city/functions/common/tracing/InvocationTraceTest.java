@@ -0,0 +1,63 @@
+package hiperium.city.functions.common.tracing;
+
+import hiperium.city.functions.common.enums.InvocationStage;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvocationTraceTest {
+
+    private static final String TRACE_HEADER_VALUE = "Root=1-5759e988-bd862e3fe1be46a994272793;Sampled=1";
+
+    @Test
+    @DisplayName("Trace correlates stages with the request ID and the X-Ray header")
+    void givenRequestWithTraceHeader_whenTraceStages_thenRecordsDurationsAndMdc() throws InterruptedException {
+        InvocationTrace trace = InvocationTrace.start(this.createRequest("request-1",
+            Map.of("x-amzn-trace-id", TRACE_HEADER_VALUE)));
+
+        trace.begin(InvocationStage.BUSINESS);
+        Thread.sleep(5L);
+        trace.end(InvocationStage.BUSINESS);
+
+        assertThat(trace.getRequestId()).isEqualTo("request-1");
+        assertThat(trace.getTraceHeader()).isEqualTo(TRACE_HEADER_VALUE);
+        assertThat(MDC.get(InvocationTrace.MDC_REQUEST_ID)).isEqualTo("request-1");
+        assertThat(MDC.get(InvocationTrace.MDC_TRACE_ID)).isEqualTo(TRACE_HEADER_VALUE);
+        assertThat(trace.durationNanos(InvocationStage.BUSINESS)).isGreaterThanOrEqualTo(5_000_000L);
+        assertThat(trace.durationNanos(InvocationStage.PARSE)).isZero();
+
+        trace.finish();
+
+        assertThat(MDC.get(InvocationTrace.MDC_REQUEST_ID)).isNull();
+        assertThat(MDC.get(InvocationTrace.MDC_TRACE_ID)).isNull();
+    }
+
+    @Test
+    @DisplayName("The same preallocated trace is reused by every invocation of a thread")
+    void givenConsecutiveInvocations_whenStart_thenReusesAndResetsTrace() {
+        InvocationTrace firstTrace = InvocationTrace.start(this.createRequest("request-1", null));
+        firstTrace.begin(InvocationStage.PARSE);
+        firstTrace.end(InvocationStage.PARSE);
+        firstTrace.finish();
+
+        InvocationTrace secondTrace = InvocationTrace.start(this.createRequest("request-2", null));
+
+        assertThat(secondTrace).isSameAs(firstTrace).isSameAs(InvocationTrace.current());
+        assertThat(secondTrace.getRequestId()).isEqualTo("request-2");
+        assertThat(secondTrace.getTraceHeader()).isNull();
+        assertThat(secondTrace.durationNanos(InvocationStage.PARSE)).isZero();
+        secondTrace.finish();
+    }
+
+    private FunctionRequest createRequest(final String requestId, final Map<String, String> headers) {
+        return new FunctionRequest(headers, new FunctionRequest.RequestContext(
+            "account-id", "api-id", new FunctionRequest.RequestContext.Http(
+                "/path", "HTTP/1.1", "127.0.0.1", "agent"),
+            requestId, "route-key", "default", "time"), null);
+    }
+}
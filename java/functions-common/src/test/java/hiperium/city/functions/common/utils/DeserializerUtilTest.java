@@ -4,10 +4,18 @@ import hiperium.city.functions.common.exceptions.CityException;
 import hiperium.city.functions.common.exceptions.ValidationException;
 import hiperium.city.functions.common.requests.CityIdRequest;
 import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -92,4 +100,203 @@ class DeserializerUtilTest {
         org.junit.jupiter.api.Assertions.assertThrows(CityException.class,
                 () -> DeserializerUtil.deserializeCityId(functionRequest));
     }
+
+    @Test
+    @DisplayName("Deserialize body of an invocation envelope")
+    void givenInvocationEnvelope_whenDeserializeBody_thenReturnTypedBody() {
+        Message<String> message = ResponseUtil.invocation("request-id", "city-status",
+            new CityIdRequest("a0ecb466-7ef5-47bf-a1ca-12f9f9328528"));
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeBody(message, CityIdRequest.class);
+
+        assertThat(message.getPayload()).contains("\"body\":{\"cityId\"");
+        assertThat(message.getHeaders().get(FunctionsUtil.ROUTING_PARAMETER)).isEqualTo("city-status");
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+    }
+
+    @Test
+    @DisplayName("Detect an invocation envelope from a lowercase content type header")
+    void givenLowercaseContentTypeHeader_whenDeserializeBody_thenReturnTypedBody() {
+        String payload = ResponseUtil.invocation("request-id", "city-status",
+            new CityIdRequest("a0ecb466-7ef5-47bf-a1ca-12f9f9328528")).getPayload();
+        Message<String> message = MessageBuilder.withPayload(payload)
+            .setHeader("content-type", InvocationEnvelope.CONTENT_TYPE)
+            .build();
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeBody(message, CityIdRequest.class);
+
+        assertThat(DeserializerUtil.contentType(message)).isEqualTo(InvocationEnvelope.CONTENT_TYPE);
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+    }
+
+    @Test
+    @DisplayName("Detect an invocation envelope without headers from its format discriminator")
+    void givenEnvelopeWithoutHeaders_whenDeserializeBody_thenReturnTypedBody() {
+        String payload = ResponseUtil.invocation("request-id", "city-status",
+            new CityIdRequest("a0ecb466-7ef5-47bf-a1ca-12f9f9328528")).getPayload();
+        Message<String> message = MessageBuilder.withPayload(payload).build();
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeBody(message, CityIdRequest.class);
+
+        assertThat(payload).startsWith("{\"format\":\"" + InvocationEnvelope.FORMAT + "\"");
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+        assertThat(InvocationEnvelope.isEnvelopePayload(" {\n  \"format\" : \"hiperium.invocation\"}")).isTrue();
+        assertThat(InvocationEnvelope.isEnvelopePayload(VALID_API_GATEWAY_REQUEST_JSON)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deserialize body of an API Gateway event message")
+    void givenApiGatewayMessage_whenDeserializeBody_thenReturnTypedBody() {
+        Message<String> message = MessageBuilder.withPayload(VALID_API_GATEWAY_REQUEST_JSON).build();
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeBody(message, CityIdRequest.class);
+
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+    }
+
+    @Test
+    @DisplayName("Throws ValidationException when the envelope has no body")
+    void givenEnvelopeWithoutBody_whenDeserializeBody_thenThrowsValidationException() {
+        Message<String> message = MessageBuilder.withPayload("{\"requestId\":\"request-id\"}")
+            .setHeader("Content-Type", InvocationEnvelope.CONTENT_TYPE + ";charset=UTF-8")
+            .build();
+
+        ValidationException exception = org.junit.jupiter.api.Assertions.assertThrows(ValidationException.class,
+            () -> DeserializerUtil.deserializeBody(message, CityIdRequest.class));
+
+        assertThat(exception.getRequestId()).isEqualTo("request-id");
+    }
+
+    @Test
+    @DisplayName("Throws ValidationException with a truncated body when the body is too long")
+    void givenOversizedBody_whenDeserializeCityId_thenThrowsValidationException() {
+        String body = "{\"cityId\":\"" + "a".repeat(DeserializerUtil.MAX_BODY_LENGTH) + "\"}";
+        FunctionRequest functionRequest = new FunctionRequest(null, new FunctionRequest.RequestContext(
+                "account-id", "api-id", null, "request-id", "route-key", "default", "time"), body);
+
+        ValidationException exception = org.junit.jupiter.api.Assertions.assertThrows(ValidationException.class,
+                () -> DeserializerUtil.deserializeCityId(functionRequest));
+
+        assertThat(exception.getMessage()).hasSizeLessThan(512).contains("characters)");
+        assertThat(exception.getRequestId()).isEqualTo("request-id");
+    }
+
+    @Test
+    @DisplayName("Throws ValidationException when the body is nested too deeply")
+    void givenDeeplyNestedBody_whenDeserializeCityId_thenThrowsValidationException() {
+        int depth = DeserializerUtil.MAX_NESTING_DEPTH + 1;
+        String body = "{\"cityId\":\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\",\"extra\":"
+            + "{\"a\":".repeat(depth) + "0" + "}".repeat(depth) + "}";
+        FunctionRequest functionRequest = new FunctionRequest(null, new FunctionRequest.RequestContext(
+                "account-id", "api-id", null, "request-id", "route-key", "default", "time"), body);
+
+        ValidationException exception = org.junit.jupiter.api.Assertions.assertThrows(ValidationException.class,
+                () -> DeserializerUtil.deserializeCityId(functionRequest));
+
+        assertThat(exception.getMessage()).contains("nesting depth");
+    }
+
+    @Test
+    @DisplayName("Throws ValidationException when the body string of the event exceeds the parser limits")
+    void givenOversizedEventBody_whenDeserializeBody_thenThrowsValidationException() {
+        String body = "a".repeat(DeserializerUtil.MAX_STRING_LENGTH + 1);
+        Message<String> message = MessageBuilder.withPayload("{\"body\":\"" + body + "\"}").build();
+
+        ValidationException exception = org.junit.jupiter.api.Assertions.assertThrows(ValidationException.class,
+            () -> DeserializerUtil.deserializeBody(message, CityIdRequest.class));
+
+        assertThat(exception.getMessage()).contains("String value length");
+    }
+
+    @Test
+    @DisplayName("Throws ValidationException when a known property of the event is nested too deeply")
+    void givenDeeplyNestedAuthorizer_whenDeserializeBody_thenThrowsValidationException() {
+        int depth = DeserializerUtil.MAX_NESTING_DEPTH + 1;
+        Message<String> message = MessageBuilder.withPayload("{\"requestContext\":{\"authorizer\":"
+            + "{\"a\":".repeat(depth) + "0" + "}".repeat(depth) + "},\"body\":\"{}\"}").build();
+
+        ValidationException exception = org.junit.jupiter.api.Assertions.assertThrows(ValidationException.class,
+            () -> DeserializerUtil.deserializeBody(message, CityIdRequest.class));
+
+        assertThat(exception.getMessage()).contains("nesting depth");
+    }
+
+    @Test
+    @DisplayName("Invalid bodies are truncated in the exception message")
+    void givenLongInvalidBody_whenDeserializeCityId_thenMessageIsTruncated() {
+        String body = "{ invalid json " + "x".repeat(10_000);
+        FunctionRequest functionRequest = new FunctionRequest(null, new FunctionRequest.RequestContext(
+                "account-id", "api-id", null, "request-id", "route-key", "default", "time"), body);
+
+        CityException exception = org.junit.jupiter.api.Assertions.assertThrows(CityException.class,
+                () -> DeserializerUtil.deserializeCityId(functionRequest));
+
+        assertThat(exception.getMessage()).hasSizeLessThan(512).endsWith("(10015 characters)");
+    }
+
+    @Test
+    @DisplayName("Deserialize isBase64Encoded flag of the request event")
+    void givenBase64Flag_whenDeserializeRequest_thenFlagIsSet() throws IOException {
+        FunctionRequest functionRequest = DeserializerUtil.fromJson(
+            VALID_API_GATEWAY_REQUEST_JSON.replace("\"isBase64Encoded\": false", "\"isBase64Encoded\": true"));
+
+        assertThat(functionRequest.base64Encoded()).isTrue();
+        assertThat(FunctionsUtil.OBJECT_MAPPER.writeValueAsString(functionRequest)).contains("\"isBase64Encoded\":true");
+    }
+
+    @Test
+    @DisplayName("Deserialize Base64-encoded CityId")
+    void givenBase64Body_whenDeserializeCityId_thenReturnValidObject() {
+        String body = Base64.getEncoder().encodeToString(
+            "{\"cityId\":\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\"}".getBytes(StandardCharsets.UTF_8));
+        FunctionRequest functionRequest = new FunctionRequest(null, null, body, true);
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeCityId(functionRequest);
+
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+    }
+
+    @Test
+    @DisplayName("Deserialize gzipped and Base64-encoded CityId")
+    void givenGzippedBase64Body_whenDeserializeCityId_thenReturnValidObject() throws IOException {
+        FunctionRequest functionRequest = new FunctionRequest(Map.of("content-encoding", "gzip"), null,
+            gzipBase64("{\"cityId\":\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\"}"), true);
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeCityId(functionRequest);
+
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+    }
+
+    @Test
+    @DisplayName("Base64-encoded bodies are bounded by their decoded length")
+    void givenLargeBase64Body_whenDeserializeBody_thenReturnValidObject() {
+        String json = "{\"cityId\":\"a0ecb466-7ef5-47bf-a1ca-12f9f9328528\",\"padding\":\""
+            + "x".repeat(200 * 1024) + "\"}";
+        String body = Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        Message<String> message = MessageBuilder.withPayload(
+            "{\"requestContext\":{\"requestId\":\"id\"},\"body\":\"" + body + "\",\"isBase64Encoded\":true}").build();
+
+        CityIdRequest cityIdRequest = DeserializerUtil.deserializeBody(message, CityIdRequest.class);
+
+        assertThat(body.length()).isGreaterThan(DeserializerUtil.MAX_BODY_LENGTH);
+        assertThat(cityIdRequest.cityId()).isEqualTo("a0ecb466-7ef5-47bf-a1ca-12f9f9328528");
+    }
+
+    @Test
+    @DisplayName("Throws ValidationException when a gzipped body expands beyond the maximum length")
+    void givenGzipBomb_whenDeserializeCityId_thenThrowsValidationException() throws IOException {
+        FunctionRequest functionRequest = new FunctionRequest(Map.of("Content-Encoding", "gzip"), null,
+            gzipBase64("{\"cityId\":\"" + " ".repeat(DeserializerUtil.MAX_BODY_LENGTH) + "\"}"), true);
+
+        org.junit.jupiter.api.Assertions.assertThrows(ValidationException.class,
+                () -> DeserializerUtil.deserializeCityId(functionRequest));
+    }
+
+    private static String gzipBase64(String json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
 }
@@ -0,0 +1,50 @@
+package hiperium.city.functions.common.utils;
+
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.responses.ErrorDetails;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorBodyWriterTest {
+
+    private static final ZonedDateTime TIMESTAMP =
+        ZonedDateTime.of(2024, 1, 2, 3, 4, 5, 123_456_789, ZoneId.of("America/Guayaquil"));
+
+    @ParameterizedTest
+    @EnumSource(ErrorCode.class)
+    @DisplayName("Rendered error bodies are identical to the Jackson serialization")
+    void givenErrorCode_whenRender_thenSameAsJackson(ErrorCode code) throws IOException {
+        String detail = "City \"Quito\" isn't valid:\n\t\\path/é\u0001";
+
+        String body = ErrorBodyWriter.render(code, detail, TIMESTAMP, "request-id");
+
+        assertThat(body).isEqualTo(FunctionsUtil.OBJECT_MAPPER.writeValueAsString(
+            new ErrorDetails(code.name(), code.getDescription(), detail, TIMESTAMP, "request-id")));
+    }
+
+    @Test
+    @DisplayName("Null fields are omitted, as in the Jackson serialization")
+    void givenNullFields_whenRender_thenFieldsAreOmitted() throws IOException {
+        ZonedDateTime timestamp = ZonedDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneId.of("UTC"));
+
+        String body = ErrorBodyWriter.render(ErrorCode.INTERNAL_001, null, timestamp, null);
+
+        assertThat(body).isEqualTo(FunctionsUtil.OBJECT_MAPPER.writeValueAsString(new ErrorDetails(
+            ErrorCode.INTERNAL_001.name(), ErrorCode.INTERNAL_001.getDescription(), null, timestamp, null)));
+    }
+
+    @Test
+    @DisplayName("The fallback body holds the error code and description")
+    void givenErrorCode_whenFallback_thenReturnsConstantBody() {
+        assertThat(ErrorBodyWriter.fallback(ErrorCode.INTERNAL_002))
+            .isEqualTo("{\"code\":\"INTERNAL_002\",\"description\":\"Serialization error.\"}");
+    }
+}
@@ -2,15 +2,29 @@ package hiperium.city.functions.common.utils;
 
 import hiperium.city.functions.common.enums.ErrorCode;
 import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.requests.InvocationEnvelope;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.Message;
 import org.springframework.util.MimeTypeUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class ResponseUtilTest {
 
@@ -54,4 +68,157 @@ class ResponseUtilTest {
         assertEquals(expectedJson, response.getPayload());
         assertEquals(MimeTypeUtils.APPLICATION_JSON_VALUE, response.getHeaders().get(HttpHeaders.CONTENT_TYPE));
     }
+
+    @Test
+    void testSuccess_withEnvelopeContentType_returnsEnvelope() {
+        // Arrange
+        Map<String, String> testBody = Map.of("key", "value");
+        String expectedJson = "{\"format\":\"hiperium.invocation\",\"requestId\":\"requestId\",\"body\":{\"key\":\"value\"}}";
+
+        // Act
+        Message<String> response = ResponseUtil.success(testBody, InvocationEnvelope.CONTENT_TYPE, "requestId");
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE));
+        assertEquals(expectedJson, response.getPayload());
+        assertEquals(InvocationEnvelope.CONTENT_TYPE, response.getHeaders().get(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void testSuccess_withGzipAndLargeBody_returnsCompressedResponse() throws IOException {
+        // Arrange
+        List<String> testBody = IntStream.range(0, 500).mapToObj(index -> "city-" + index).toList();
+        String expectedJson = FunctionsUtil.OBJECT_MAPPER.writeValueAsString(testBody);
+        FunctionRequest functionRequest = requestAccepting("br;q=1.0, gzip;q=0.8, deflate");
+
+        // Act
+        Message<String> first = ResponseUtil.success(testBody, functionRequest);
+        Message<String> second = ResponseUtil.success(testBody, functionRequest);
+
+        // Assert
+        assertEquals("gzip", first.getHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(true, first.getHeaders().get(ResponseUtil.LAMBDA_IS_BASE64_ENCODED));
+        assertEquals(expectedJson, decompress(new GZIPInputStream(decode(first))));
+        assertEquals(first.getPayload(), second.getPayload());
+    }
+
+    @Test
+    void testSuccess_withDeflateAndLargeBody_returnsCompressedResponse() throws IOException {
+        // Arrange
+        List<String> testBody = IntStream.range(0, 500).mapToObj(index -> "city-" + index).toList();
+        String expectedJson = FunctionsUtil.OBJECT_MAPPER.writeValueAsString(testBody);
+
+        // Act
+        Message<String> response = ResponseUtil.success(testBody, requestAccepting("gzip;q=0, deflate"));
+
+        // Assert
+        assertEquals("deflate", response.getHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(expectedJson, decompress(new InflaterInputStream(decode(response))));
+    }
+
+    @Test
+    void testSuccess_withWildcardAndExcludedGzip_returnsDeflateResponse() {
+        // Act
+        String wildcardOnly = CompressingOutputStream.negotiate("*");
+        String gzipExcluded = CompressingOutputStream.negotiate("gzip;q=0, *");
+        String allExcluded = CompressingOutputStream.negotiate("gzip;q=0, deflate;q=0, *");
+        String wildcardExcluded = CompressingOutputStream.negotiate("*;q=0, identity");
+
+        // Assert
+        assertEquals("gzip", wildcardOnly);
+        assertEquals("deflate", gzipExcluded);
+        assertNull(allExcluded);
+        assertNull(wildcardExcluded);
+    }
+
+    @Test
+    void testSuccess_withRepeatedCompression_reusesBoundedDeflaterPool() throws IOException {
+        // Arrange
+        List<String> testBody = IntStream.range(0, 500).mapToObj(index -> "city-" + index).toList();
+        String expectedJson = FunctionsUtil.OBJECT_MAPPER.writeValueAsString(testBody);
+        int poolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        // Act
+        List<Message<String>> responses = IntStream.range(0, 50)
+            .parallel()
+            .mapToObj(index -> ResponseUtil.success(testBody, requestAccepting("gzip")))
+            .toList();
+
+        // Assert
+        for (Message<String> response : responses) {
+            assertEquals(expectedJson, decompress(new GZIPInputStream(decode(response))));
+        }
+        assertThat(CompressingOutputStream.pooledDeflaters(CompressingOutputStream.GZIP)).isBetween(1, poolSize);
+    }
+
+    @Test
+    void testSuccess_withGzipAndSmallBody_returnsUncompressedResponse() {
+        // Arrange
+        Map<String, String> testBody = Map.of("key", "value");
+
+        // Act
+        Message<String> response = ResponseUtil.success(testBody, requestAccepting("gzip"));
+
+        // Assert
+        assertEquals("{\"key\":\"value\"}", response.getPayload());
+        assertEquals(false, response.getHeaders().get(ResponseUtil.LAMBDA_IS_BASE64_ENCODED));
+        assertNull(response.getHeaders().get(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testSuccess_withoutAcceptEncoding_returnsUncompressedResponse() {
+        // Arrange
+        List<String> testBody = IntStream.range(0, 500).mapToObj(index -> "city-" + index).toList();
+
+        // Act
+        Message<String> response = ResponseUtil.success(testBody, new FunctionRequest(Map.of(), null, null));
+
+        // Assert
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON_VALUE, response.getHeaders().get(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    void testConditional_withMatchingETag_returnsNotModified() {
+        // Arrange
+        Map<String, String> testBody = Map.of("key", "value");
+        String etag = ResponseUtil.etag("{\"key\":\"value\"}");
+        FunctionRequest functionRequest = new FunctionRequest(Map.of("If-None-Match", "\"other\", " + etag), null, null);
+
+        // Act
+        Message<String> response = ResponseUtil.conditional(testBody, functionRequest);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE));
+        assertEquals("", response.getPayload());
+        assertEquals(etag, response.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testConditional_withoutIfNoneMatch_returnsBodyAndETag() {
+        // Arrange
+        Map<String, String> testBody = Map.of("key", "value");
+
+        // Act
+        Message<String> response = ResponseUtil.conditional(testBody, new FunctionRequest(null, null, null));
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getHeaders().get(ResponseUtil.LAMBDA_STATUS_CODE));
+        assertEquals("{\"key\":\"value\"}", response.getPayload());
+        assertEquals(ResponseUtil.etag(response.getPayload()), response.getHeaders().get(HttpHeaders.ETAG));
+    }
+
+    private static FunctionRequest requestAccepting(String acceptEncoding) {
+        return new FunctionRequest(Map.of("accept-encoding", acceptEncoding), null, null);
+    }
+
+    private static InputStream decode(Message<String> response) {
+        return new ByteArrayInputStream(Base64.getDecoder().decode(response.getPayload()));
+    }
+
+    private static String decompress(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package hiperium.city.functions.tests.utils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The AllocationMeter class measures the heap bytes allocated by an operation, using the per-thread allocation
+ * counters of the HotSpot {@link com.sun.management.ThreadMXBean}. Tests use it to assert an allocation budget
+ * for hot paths, so a change that makes them allocate more is caught in a normal test run:
+ * <pre>{@code
+ * long bytes = AllocationMeter.bytesPerOperation(() -> DeserializerUtil.fromJson(json));
+ * assertThat(bytes).isLessThan(4_096L);
+ * }</pre>
+ * The operation is warmed up first, so the JIT compiler and the lazy initializations don't count, and it runs
+ * in the calling thread, so allocations made by other threads are ignored.
+ */
+public final class AllocationMeter {
+
+    /**
+     * The default number of runs before the measurement starts.
+     */
+    public static final int DEFAULT_WARMUP_ITERATIONS = 10_000;
+
+    /**
+     * The default number of measured runs.
+     */
+    public static final int DEFAULT_MEASURED_ITERATIONS = 1_000;
+
+    private AllocationMeter() {
+        throw new UnsupportedOperationException("Utility classes should not be instantiated.");
+    }
+
+    /**
+     * An operation whose allocations are measured. It may throw checked exceptions, like most parsers.
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @throws Exception If the operation fails.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Verifies whether the running JVM can measure the bytes allocated by a thread.
+     *
+     * @return {@code true} if the allocation counters are available.
+     */
+    public static boolean isSupported() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+            && threadMXBean.isThreadAllocatedMemorySupported();
+    }
+
+    /**
+     * Measures the average bytes allocated per run of the operation, with the default iterations.
+     *
+     * @param operation The operation to measure.
+     * @return The average number of bytes allocated per run.
+     * @throws IllegalStateException If the JVM can't measure thread allocations, or the operation fails.
+     */
+    public static long bytesPerOperation(final Operation operation) {
+        return bytesPerOperation(operation, DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASURED_ITERATIONS);
+    }
+
+    /**
+     * Measures the average bytes allocated per run of the operation.
+     *
+     * @param operation          The operation to measure.
+     * @param warmupIterations   The number of runs before the measurement starts.
+     * @param measuredIterations The number of measured runs.
+     * @return The average number of bytes allocated per run.
+     * @throws IllegalStateException If the JVM can't measure thread allocations, or the operation fails.
+     */
+    public static long bytesPerOperation(final Operation operation, int warmupIterations, int measuredIterations) {
+        if (!isSupported()) {
+            throw new IllegalStateException("The JVM doesn't support measuring thread allocations.");
+        }
+        if (measuredIterations <= 0) {
+            throw new IllegalArgumentException("The number of measured iterations must be positive.");
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        runRepeatedly(operation, warmupIterations);
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        runRepeatedly(operation, measuredIterations);
+        long after = threadMXBean.getCurrentThreadAllocatedBytes();
+        return (after - before) / measuredIterations;
+    }
+
+    private static void runRepeatedly(final Operation operation, int iterations) {
+        try {
+            for (int index = 0; index < iterations; index++) {
+                operation.run();
+            }
+        } catch (Exception exception) {
+            throw new IllegalStateException("The measured operation failed: " + exception.getMessage(), exception);
+        }
+    }
+}
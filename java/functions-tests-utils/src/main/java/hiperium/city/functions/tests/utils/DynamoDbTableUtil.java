@@ -1,12 +1,15 @@
 package hiperium.city.functions.tests.utils;
 
 import org.awaitility.Awaitility;
+import org.awaitility.pollinterval.FibonacciPollInterval;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.TableStatus;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The DynamoDbTableUtil class provides utility methods for test-related operations.
@@ -34,12 +37,34 @@ public final class DynamoDbTableUtil {
         Awaitility.await()
             .atMost(Duration.ofSeconds(maxWaitTime))            // maximum wait time
             .pollInterval(Duration.ofSeconds(checkInterval))    // frequency check time
-            .until(() -> {
-                DescribeTableRequest request = DescribeTableRequest.builder()
-                    .tableName(tableName)
-                    .build();
-                DescribeTableResponse response = dynamoDbClient.describeTable(request);
-                return TableStatus.ACTIVE.equals(response.table().tableStatus());
-            });
+            .until(() -> isTableActive(dynamoDbClient, tableName));
+    }
+
+    /**
+     * Waits for a specified DynamoDB table to become active, polling with sub-second intervals that grow
+     * following a Fibonacci sequence, so a table created by a local emulator is detected within milliseconds
+     * while a slower endpoint isn't flooded with requests.
+     *
+     * @param dynamoDbClient The DynamoDB client used to communicate with the DynamoDB service.
+     * @param tableName      The name of the DynamoDB table to check for readiness.
+     * @param maxWaitTime    The maximum wait time before giving up.
+     */
+    public static void waitForTableToBeActive(final DynamoDbClient dynamoDbClient,
+                                              final String tableName,
+                                              final Duration maxWaitTime) {
+        Awaitility.await()
+            .atMost(maxWaitTime)
+            .pollDelay(Duration.ZERO)
+            .pollInterval(FibonacciPollInterval.fibonacci(50, TimeUnit.MILLISECONDS))
+            .ignoreException(ResourceNotFoundException.class)
+            .until(() -> isTableActive(dynamoDbClient, tableName));
+    }
+
+    private static boolean isTableActive(final DynamoDbClient dynamoDbClient, final String tableName) {
+        DescribeTableRequest request = DescribeTableRequest.builder()
+            .tableName(tableName)
+            .build();
+        DescribeTableResponse response = dynamoDbClient.describeTable(request);
+        return TableStatus.ACTIVE.equals(response.table().tableStatus());
     }
 }
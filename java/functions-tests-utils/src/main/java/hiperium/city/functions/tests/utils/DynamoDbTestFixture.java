@@ -0,0 +1,182 @@
+package hiperium.city.functions.tests.utils;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The DynamoDbTestFixture class provides a DynamoDB endpoint shared by all the test classes of a JVM, such as a
+ * LocalStack or DynamoDB Local container, so each test class doesn't pay for its own container start:
+ * <pre>{@code
+ * private static final LocalStackContainer LOCALSTACK = new LocalStackContainer(LOCALSTACK_IMAGE);
+ * private static final DynamoDbTestFixture FIXTURE = DynamoDbTestFixture.shared(() -> {
+ *     LOCALSTACK.start();
+ *     return LOCALSTACK.getEndpoint();
+ * });
+ *
+ * String tableName = FIXTURE.createTable("Cities", "id");
+ * FIXTURE.loadItems(tableName, items);
+ * }</pre>
+ * The endpoint starter runs only once per JVM, and not at all when the {@value #ENDPOINT_PROPERTY} system
+ * property points to an endpoint that is already running. Tables are created with a unique suffix, so test
+ * classes can run in parallel against the same endpoint without seeing each other's items.
+ */
+public final class DynamoDbTestFixture {
+
+    /**
+     * System property holding the URI of an already running DynamoDB endpoint.
+     */
+    public static final String ENDPOINT_PROPERTY = "hiperium.tests.dynamodb.endpoint";
+
+    /**
+     * Maximum number of items DynamoDB accepts in a single BatchWriteItem request.
+     */
+    public static final int MAX_ITEMS_PER_BATCH = 25;
+
+    private static final Duration TABLE_ACTIVE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_BATCH_ATTEMPTS = 10;
+    private static DynamoDbTestFixture sharedFixture;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    DynamoDbTestFixture(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    /**
+     * Retrieves the fixture shared by the current JVM, starting its endpoint on the first call.
+     *
+     * @param endpointStarter Starts the DynamoDB endpoint, e.g., a LocalStack container, and returns its URI.
+     *                        It's ignored when the {@value #ENDPOINT_PROPERTY} system property is set.
+     * @return The shared fixture.
+     */
+    public static synchronized DynamoDbTestFixture shared(final Supplier<URI> endpointStarter) {
+        if (Objects.isNull(sharedFixture)) {
+            String endpoint = System.getProperty(ENDPOINT_PROPERTY);
+            sharedFixture = forEndpoint(Objects.isNull(endpoint) ? endpointStarter.get() : URI.create(endpoint));
+        }
+        return sharedFixture;
+    }
+
+    /**
+     * Creates a fixture for the given endpoint, with the static test credentials accepted by local emulators.
+     *
+     * @param endpoint The URI of the DynamoDB endpoint.
+     * @return A new fixture with its own DynamoDB client.
+     */
+    public static DynamoDbTestFixture forEndpoint(final URI endpoint) {
+        return new DynamoDbTestFixture(DynamoDbClient.builder()
+            .endpointOverride(endpoint)
+            .region(Region.US_EAST_1)
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+            .build());
+    }
+
+    /**
+     * Retrieves the DynamoDB client connected to the fixture endpoint.
+     *
+     * @return The DynamoDB client of the fixture.
+     */
+    public DynamoDbClient getDynamoDbClient() {
+        return dynamoDbClient;
+    }
+
+    /**
+     * Derives a table name that is unique for the calling test, so tests can run in parallel.
+     *
+     * @param baseName The table name used by the function.
+     * @return The base name followed by a random suffix.
+     */
+    public String namespacedTableName(final String baseName) {
+        return baseName + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Creates an on-demand table with a string partition key and a unique name, and waits until it's active.
+     *
+     * @param baseName         The table name used by the function.
+     * @param partitionKeyName The name of the string partition key.
+     * @return The name of the created table.
+     */
+    public String createTable(final String baseName, final String partitionKeyName) {
+        String tableName = this.namespacedTableName(baseName);
+        this.dynamoDbClient.createTable(CreateTableRequest.builder()
+            .tableName(tableName)
+            .attributeDefinitions(AttributeDefinition.builder()
+                .attributeName(partitionKeyName)
+                .attributeType(ScalarAttributeType.S)
+                .build())
+            .keySchema(KeySchemaElement.builder()
+                .attributeName(partitionKeyName)
+                .keyType(KeyType.HASH)
+                .build())
+            .billingMode(BillingMode.PAY_PER_REQUEST)
+            .build());
+        DynamoDbTableUtil.waitForTableToBeActive(this.dynamoDbClient, tableName, TABLE_ACTIVE_TIMEOUT);
+        return tableName;
+    }
+
+    /**
+     * Loads the given items into a table with BatchWriteItem requests of {@value #MAX_ITEMS_PER_BATCH} items,
+     * writing again the items DynamoDB reports as unprocessed.
+     *
+     * @param tableName The name of the table.
+     * @param items     The items to write.
+     * @throws IllegalStateException If some items are still unprocessed after several attempts.
+     */
+    public void loadItems(final String tableName, final List<Map<String, AttributeValue>> items) {
+        for (int start = 0; start < items.size(); start += MAX_ITEMS_PER_BATCH) {
+            List<WriteRequest> writeRequests = new ArrayList<>(MAX_ITEMS_PER_BATCH);
+            for (Map<String, AttributeValue> item : items.subList(start, Math.min(start + MAX_ITEMS_PER_BATCH, items.size()))) {
+                writeRequests.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+            }
+            Map<String, List<WriteRequest>> pending = Map.of(tableName, writeRequests);
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                if (attempt > MAX_BATCH_ATTEMPTS) {
+                    throw new IllegalStateException("Items still unprocessed after " + MAX_BATCH_ATTEMPTS
+                        + " attempts while loading table " + tableName);
+                }
+                BatchWriteItemResponse response = this.dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(pending)
+                    .build());
+                pending = response.unprocessedItems();
+            }
+        }
+    }
+
+    /**
+     * Deletes the given table, ignoring it if it doesn't exist.
+     *
+     * @param tableName The name of the table.
+     */
+    public void deleteTable(final String tableName) {
+        try {
+            this.dynamoDbClient.deleteTable(DeleteTableRequest.builder().tableName(tableName).build());
+        } catch (ResourceNotFoundException exception) {
+            // The table was already deleted.
+        }
+    }
+}
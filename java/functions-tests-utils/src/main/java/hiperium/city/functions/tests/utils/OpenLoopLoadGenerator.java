@@ -0,0 +1,97 @@
+package hiperium.city.functions.tests.utils;
+
+import hiperium.city.functions.common.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The OpenLoopLoadGenerator class sends requests to a handler at a fixed target rate, whatever the handler
+ * latency is, and measures the latency of each request from the time it was scheduled to be sent.
+ * <p>
+ * A closed-loop generator waits for a response before sending the next request, so a slow response delays the
+ * requests behind it and their waiting time is never measured: the coordinated omission problem. Here, the
+ * send time of every request is fixed in advance by the rate, each request runs on its own virtual thread, and
+ * the recorded latency includes any time the request spent behind schedule.
+ */
+public final class OpenLoopLoadGenerator {
+
+    private final int ratePerSecond;
+    private final Duration duration;
+
+    /**
+     * Constructs a new OpenLoopLoadGenerator.
+     *
+     * @param ratePerSecond The number of requests sent per second, at most one per nanosecond.
+     * @param duration      The time during which requests are sent.
+     */
+    public OpenLoopLoadGenerator(int ratePerSecond, Duration duration) {
+        if (ratePerSecond <= 0 || ratePerSecond > TimeUnit.SECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("The rate must be positive and at most one request per nanosecond.");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+    }
+
+    /**
+     * Sends the requests built by the given source to the handler, and waits for all of them to complete.
+     *
+     * @param requestSource The source of the requests, called from the scheduling thread only.
+     * @param handler       The handler under test. A request fails when the handler throws an exception or an
+     *                      error, such as a failed assertion.
+     * @param <T>           The type of the requests.
+     * @return The result of the run, with latencies in microseconds.
+     */
+    public <T> LoadResult run(final Supplier<? extends T> requestSource, final Consumer<? super T> handler) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / this.ratePerSecond;
+        long totalRequests = this.duration.toNanos() / intervalNanos;
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long index = 0; index < totalRequests; index++) {
+                long intendedStart = start + index * intervalNanos;
+                long delay = intendedStart - System.nanoTime();
+                if (delay > 0L) {
+                    LockSupport.parkNanos(delay);
+                }
+                T request = requestSource.get();
+                executor.execute(() -> {
+                    try {
+                        handler.accept(request);
+                    } catch (RuntimeException | Error exception) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+                    }
+                });
+            }
+        }
+        return new LoadResult(totalRequests, failures.get(), latencies.snapshotThenReset(),
+            Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * The LoadResult record holds the outcome of a load generator run.
+     *
+     * @param requests  The number of requests sent.
+     * @param failures  The number of requests whose handler threw an exception or an error.
+     * @param latencies The latency distribution of the requests, in microseconds, measured from their
+     *                  scheduled send time.
+     * @param elapsed   The total duration of the run.
+     */
+    public record LoadResult(
+        long requests,
+        long failures,
+        LatencyHistogram.Snapshot latencies,
+        Duration elapsed
+    ) {
+    }
+}
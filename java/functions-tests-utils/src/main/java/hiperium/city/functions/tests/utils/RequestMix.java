@@ -0,0 +1,51 @@
+package hiperium.city.functions.tests.utils;
+
+/**
+ * The RequestMix record defines the distribution of the requests built by a {@link SyntheticRequestGenerator}.
+ * Ratios are probabilities between 0 and 1, drawn independently for every request.
+ *
+ * @param invalidUuidRatio     The ratio of requests whose city ID isn't a valid UUID.
+ * @param emptyBodyRatio       The ratio of requests without a body.
+ * @param oversizedHeaderRatio The ratio of requests carrying an oversized header.
+ * @param hotCityRatio         The ratio of valid requests targeting one of the hot cities.
+ * @param hotCityCount         The number of distinct hot city IDs, which receive most of the traffic.
+ * @param coldCityCount        The number of distinct cold city IDs, which receive the rest of the traffic.
+ */
+public record RequestMix(
+    double invalidUuidRatio,
+    double emptyBodyRatio,
+    double oversizedHeaderRatio,
+    double hotCityRatio,
+    int hotCityCount,
+    int coldCityCount
+) {
+
+    /**
+     * Validates the ratios and the number of cities of the mix.
+     */
+    public RequestMix {
+        requireRatio(invalidUuidRatio, "invalidUuidRatio");
+        requireRatio(emptyBodyRatio, "emptyBodyRatio");
+        requireRatio(oversizedHeaderRatio, "oversizedHeaderRatio");
+        requireRatio(hotCityRatio, "hotCityRatio");
+        if (hotCityCount <= 0 || coldCityCount <= 0) {
+            throw new IllegalArgumentException("The number of hot and cold cities must be positive.");
+        }
+    }
+
+    /**
+     * Creates a mix resembling production traffic: mostly valid requests, with 80% of them targeting 10 hot
+     * cities out of 1,000.
+     *
+     * @return The default request mix.
+     */
+    public static RequestMix defaults() {
+        return new RequestMix(0.02, 0.01, 0.01, 0.8, 10, 1_000);
+    }
+
+    private static void requireRatio(double ratio, final String name) {
+        if (ratio < 0.0 || ratio > 1.0) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1.");
+        }
+    }
+}
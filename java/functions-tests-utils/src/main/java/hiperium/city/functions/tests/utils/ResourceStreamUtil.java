@@ -1,20 +1,61 @@
 package hiperium.city.functions.tests.utils;
 
-import java.io.File;
-import java.io.FileInputStream;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.FunctionsUtil;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 /**
  * Provides utility methods for handling file resources located within the classpath.
  * This class offers methods to retrieve resource input streams and read resource contents as strings.
+ * <p>
+ * Resources are looked up in the classpath first, so they're found whatever the working directory is, or when
+ * the tests run from a packaged jar, and then in the {@code src/test/resources/} directory. The bytes of each
+ * resource are read once and kept in memory, and parsed {@link FunctionRequest} fixtures are cached as well,
+ * so parameterized and load tests don't read the same file over and over.
+ * <p>
+ * Templates are resources containing the {@value #CITY_ID_PLACEHOLDER} and {@value #REQUEST_ID_PLACEHOLDER}
+ * placeholders. {@link #generateFunctionRequests(String, int, long)} renders them with random UUIDs to produce
+ * varied requests without any disk I/O per request. The {@value #CITY_ID_REQUEST_TEMPLATE} template is bundled
+ * with this module.
  */
 public final class ResourceStreamUtil {
 
+    /**
+     * The placeholder replaced by a random city ID in request templates.
+     */
+    public static final String CITY_ID_PLACEHOLDER = "${cityId}";
+
+    /**
+     * The placeholder replaced by a random request ID in request templates.
+     */
+    public static final String REQUEST_ID_PLACEHOLDER = "${requestId}";
+
+    /**
+     * The bundled API Gateway v2 request template, whose body holds a city ID.
+     */
+    public static final String CITY_ID_REQUEST_TEMPLATE = "templates/api-gw-v2-city-id-request.json";
+
     private static final String TEST_RESOURCES_PATH = "src/test/resources/";
+    private static final Map<String, byte[]> RESOURCE_BYTES = new ConcurrentHashMap<>();
+    private static final Map<String, FunctionRequest> FUNCTION_REQUESTS = new ConcurrentHashMap<>();
 
     private ResourceStreamUtil() {
         throw new UnsupportedOperationException("Utility classes should not be instantiated.");
@@ -28,11 +69,7 @@ public final class ResourceStreamUtil {
      * @throws IOException If the file does not exist, or an error occurs during reading the file.
      */
     public static String getJsonFromFilePath(String pathOfJsonDataFile) throws IOException {
-        File file = new File(TEST_RESOURCES_PATH + pathOfJsonDataFile);
-        if (!file.exists()) {
-            throw new NoSuchFileException("File not found: " + pathOfJsonDataFile);
-        }
-        return Files.readString(Paths.get(file.getPath()));
+        return new String(getBytes(pathOfJsonDataFile), StandardCharsets.UTF_8);
     }
 
     /**
@@ -44,10 +81,100 @@ public final class ResourceStreamUtil {
      * @throws IOException If the specified file does not exist or an I/O error occurs.
      */
     public static InputStream getInputStreamFromFilePath(String pathOfJsonDataFile) throws IOException {
-        File file = new File(TEST_RESOURCES_PATH + pathOfJsonDataFile);
-        if (!file.exists()) {
-            throw new NoSuchFileException("File not found: " + pathOfJsonDataFile);
+        return new ByteArrayInputStream(getBytes(pathOfJsonDataFile));
+    }
+
+    /**
+     * Reads a JSON file as a {@link FunctionRequest}. The request is parsed once and shared by all the callers,
+     * so it must not be modified.
+     *
+     * @param pathOfJsonDataFile The relative path to the JSON file within the test resources' directory.
+     * @return The parsed request.
+     * @throws IOException If the file does not exist, or it can't be read or parsed.
+     */
+    public static FunctionRequest getFunctionRequestFromFilePath(String pathOfJsonDataFile) throws IOException {
+        FunctionRequest functionRequest = FUNCTION_REQUESTS.get(pathOfJsonDataFile);
+        if (Objects.isNull(functionRequest)) {
+            functionRequest = FunctionsUtil.OBJECT_MAPPER.readValue(getBytes(pathOfJsonDataFile), FunctionRequest.class);
+            FUNCTION_REQUESTS.putIfAbsent(pathOfJsonDataFile, functionRequest);
+        }
+        return functionRequest;
+    }
+
+    /**
+     * Renders a request template the given number of times, each time with a new random city ID and request ID.
+     * The template is read once, and the same seed always produces the same requests.
+     *
+     * @param pathOfTemplate The relative path of the template within the test resources directory or classpath.
+     * @param count          The number of requests to generate.
+     * @param seed           The seed of the random generator of the IDs.
+     * @return The generated JSON requests.
+     * @throws IOException If the template does not exist or an I/O error occurs.
+     */
+    public static List<String> generateJsonRequests(String pathOfTemplate, int count, long seed) throws IOException {
+        String template = getJsonFromFilePath(pathOfTemplate);
+        Random random = new Random(seed);
+        List<String> requests = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            requests.add(template
+                .replace(CITY_ID_PLACEHOLDER, randomUuid(random::nextLong))
+                .replace(REQUEST_ID_PLACEHOLDER, randomUuid(random::nextLong)));
+        }
+        return requests;
+    }
+
+    /**
+     * Renders a request template the given number of times and parses the results as {@link FunctionRequest}
+     * objects, each with a new random city ID and request ID.
+     *
+     * @param pathOfTemplate The relative path of the template within the test resources directory or classpath.
+     * @param count          The number of requests to generate.
+     * @param seed           The seed of the random generator of the IDs.
+     * @return The generated requests.
+     * @throws IOException If the template does not exist, or it can't be read or parsed.
+     */
+    public static List<FunctionRequest> generateFunctionRequests(String pathOfTemplate, int count, long seed)
+        throws IOException {
+        List<FunctionRequest> requests = new ArrayList<>(count);
+        for (String json : generateJsonRequests(pathOfTemplate, count, seed)) {
+            requests.add(FunctionsUtil.OBJECT_MAPPER.readValue(json, FunctionRequest.class));
         }
-        return new FileInputStream(file);
+        return requests;
+    }
+
+    private static byte[] getBytes(final String path) throws IOException {
+        byte[] bytes = RESOURCE_BYTES.get(path);
+        if (Objects.nonNull(bytes)) {
+            return bytes;
+        }
+        try {
+            return RESOURCE_BYTES.computeIfAbsent(path, ResourceStreamUtil::readBytes);
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private static byte[] readBytes(final String path) {
+        try {
+            URL resource = ResourceStreamUtil.class.getClassLoader().getResource(path);
+            if (Objects.nonNull(resource)) {
+                try (InputStream inputStream = resource.openStream()) {
+                    return inputStream.readAllBytes();
+                }
+            }
+            Path file = Paths.get(TEST_RESOURCES_PATH + path);
+            if (!Files.isRegularFile(file)) {
+                throw new NoSuchFileException("File not found: " + path);
+            }
+            return Files.readAllBytes(file);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    static String randomUuid(final LongSupplier randomLongs) {
+        long mostSigBits = (randomLongs.getAsLong() & ~0xF000L) | 0x4000L;                    // version 4
+        long leastSigBits = (randomLongs.getAsLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L; // IETF variant
+        return new UUID(mostSigBits, leastSigBits).toString();
     }
 }
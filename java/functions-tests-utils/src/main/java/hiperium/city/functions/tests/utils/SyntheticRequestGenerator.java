@@ -0,0 +1,117 @@
+package hiperium.city.functions.tests.utils;
+
+import hiperium.city.functions.common.requests.FunctionRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * The SyntheticRequestGenerator class builds varied {@link FunctionRequest} events from a template request,
+ * following a {@link RequestMix}: valid or invalid city IDs, empty bodies, oversized headers, and hot or cold
+ * cities. Every request gets a new request ID. The generator is deterministic for a given seed, and it isn't
+ * thread-safe: it's meant to feed a single {@link OpenLoopLoadGenerator}.
+ */
+public final class SyntheticRequestGenerator implements Supplier<FunctionRequest> {
+
+    /**
+     * The name of the header added to the requests drawn as oversized.
+     */
+    public static final String OVERSIZED_HEADER = "x-hiperium-padding";
+
+    /**
+     * The size in characters of the oversized header value.
+     */
+    public static final int OVERSIZED_HEADER_LENGTH = 8 * 1024;
+
+    private static final String OVERSIZED_HEADER_VALUE = "x".repeat(OVERSIZED_HEADER_LENGTH);
+
+    private final FunctionRequest template;
+    private final RequestMix mix;
+    private final SplittableRandom random;
+    private final String[] hotCityIds;
+    private final String[] coldCityIds;
+    private long sequence;
+
+    /**
+     * Constructs a new SyntheticRequestGenerator.
+     *
+     * @param template The request whose headers and request context are copied into the generated requests.
+     * @param mix      The distribution of the generated requests.
+     * @param seed     The seed of the random generator.
+     */
+    public SyntheticRequestGenerator(FunctionRequest template, RequestMix mix, long seed) {
+        this.template = template;
+        this.mix = mix;
+        this.random = new SplittableRandom(seed);
+        this.hotCityIds = this.cityIds(mix.hotCityCount());
+        this.coldCityIds = this.cityIds(mix.coldCityCount());
+    }
+
+    /**
+     * Creates a generator whose template is read from a test resource, such as
+     * {@code requests/valid-api-gw-v2-request.json}.
+     *
+     * @param pathOfTemplate The relative path of the template request.
+     * @param mix            The distribution of the generated requests.
+     * @param seed           The seed of the random generator.
+     * @return A new generator.
+     * @throws IOException If the template does not exist, or it can't be read or parsed.
+     */
+    public static SyntheticRequestGenerator fromTemplate(String pathOfTemplate, RequestMix mix, long seed)
+        throws IOException {
+        return new SyntheticRequestGenerator(ResourceStreamUtil.getFunctionRequestFromFilePath(pathOfTemplate),
+            mix, seed);
+    }
+
+    /**
+     * Builds the next request of the mix.
+     *
+     * @return A new request.
+     */
+    @Override
+    public FunctionRequest get() {
+        Map<String, String> headers = this.template.headers();
+        if (this.random.nextDouble() < this.mix.oversizedHeaderRatio()) {
+            headers = Objects.isNull(headers) ? new HashMap<>() : new HashMap<>(headers);
+            headers.put(OVERSIZED_HEADER, OVERSIZED_HEADER_VALUE);
+        }
+        return new FunctionRequest(headers, this.requestContext(), this.body());
+    }
+
+    private FunctionRequest.RequestContext requestContext() {
+        FunctionRequest.RequestContext context = this.template.requestContext();
+        String requestId = "synthetic-" + (++this.sequence);
+        if (Objects.isNull(context)) {
+            return new FunctionRequest.RequestContext(null, null, null, requestId, null, null, null);
+        }
+        return new FunctionRequest.RequestContext(context.accountId(), context.apiId(), context.http(), requestId,
+            context.routeKey(), context.stage(), context.time());
+    }
+
+    private String body() {
+        if (this.random.nextDouble() < this.mix.emptyBodyRatio()) {
+            return "";
+        }
+        String cityId;
+        if (this.random.nextDouble() < this.mix.invalidUuidRatio()) {
+            cityId = "invalid-city-" + this.random.nextInt(1_000);
+        } else if (this.random.nextDouble() < this.mix.hotCityRatio()) {
+            cityId = this.hotCityIds[this.random.nextInt(this.hotCityIds.length)];
+        } else {
+            cityId = this.coldCityIds[this.random.nextInt(this.coldCityIds.length)];
+        }
+        return "{\"cityId\":\"" + cityId + "\"}";
+    }
+
+    private String[] cityIds(int count) {
+        String[] cityIds = new String[count];
+        for (int index = 0; index < count; index++) {
+            cityIds[index] = ResourceStreamUtil.randomUuid(this.random::nextLong);
+        }
+        return cityIds;
+    }
+}
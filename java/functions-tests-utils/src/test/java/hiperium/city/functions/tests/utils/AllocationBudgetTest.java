@@ -0,0 +1,98 @@
+package hiperium.city.functions.tests.utils;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import hiperium.city.functions.common.enums.ErrorCode;
+import hiperium.city.functions.common.exceptions.CityException;
+import hiperium.city.functions.common.loggers.HiperiumLoggerLayout;
+import hiperium.city.functions.common.requests.FunctionRequest;
+import hiperium.city.functions.common.utils.DeserializerUtil;
+import hiperium.city.functions.common.utils.ResponseUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of the functions-common hot paths. The budgets leave room for JVM differences, but they
+ * fail when a change makes an operation allocate noticeably more than it does today.
+ */
+public class AllocationBudgetTest {
+
+    private static final String REQUEST_PATH = "requests/valid-api-gw-v2-request.json";
+
+    @BeforeAll
+    static void verifySupport() {
+        assumeTrue(AllocationMeter.isSupported(), "The JVM doesn't support measuring thread allocations.");
+    }
+
+    @Test
+    void testDoLayout_WithinBudget() {
+        LoggerContext loggerContext = new LoggerContext();
+        loggerContext.setName("allocation-test");
+        Logger logger = loggerContext.getLogger(AllocationBudgetTest.class);
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+            "Processing city {}", null, new Object[]{"a3b8f0a1-7d3e-4a5b-9c2d-1e2f3a4b5c6d"});
+        event.setMDCPropertyMap(Map.of("requestId", "request-1"));
+        HiperiumLoggerLayout layout = new HiperiumLoggerLayout();
+        layout.setContext(loggerContext);
+        layout.start();
+
+        // Act
+        long bytes = AllocationMeter.bytesPerOperation(() -> layout.doLayout(event));
+
+        // Assert
+        assertThat(bytes).isLessThan(3_072L);
+    }
+
+    @Test
+    void testFromJson_WithinBudget() throws IOException {
+        String json = ResourceStreamUtil.getJsonFromFilePath(REQUEST_PATH);
+
+        // Act
+        long bytes = AllocationMeter.bytesPerOperation(() -> DeserializerUtil.fromJson(json));
+
+        // Assert
+        assertThat(bytes).isLessThan(8_192L);
+    }
+
+    @Test
+    void testDeserializeCityId_WithinBudget() throws IOException {
+        FunctionRequest functionRequest = ResourceStreamUtil.generateFunctionRequests(
+            ResourceStreamUtil.CITY_ID_REQUEST_TEMPLATE, 1, 42L).getFirst();
+
+        // Act
+        long bytes = AllocationMeter.bytesPerOperation(() -> DeserializerUtil.deserializeCityId(functionRequest));
+
+        // Assert
+        assertThat(bytes).isLessThan(2_048L);
+    }
+
+    @Test
+    void testSuccessResponse_WithinBudget() {
+        Map<String, String> body = Map.of("cityId", "a3b8f0a1-7d3e-4a5b-9c2d-1e2f3a4b5c6d", "status", "ACTIVE");
+
+        // Act
+        long bytes = AllocationMeter.bytesPerOperation(() -> ResponseUtil.success(body));
+
+        // Assert
+        assertThat(bytes).isLessThan(3_072L);
+    }
+
+    @Test
+    void testErrorResponse_WithinBudget() {
+        CityException exception = new CityException("City not found.", ErrorCode.BUSINESS_002, "request-1");
+
+        // Act
+        long bytes = AllocationMeter.bytesPerOperation(() -> ResponseUtil.error(exception));
+
+        // Assert
+        assertThat(bytes).isLessThan(3_072L);
+    }
+}
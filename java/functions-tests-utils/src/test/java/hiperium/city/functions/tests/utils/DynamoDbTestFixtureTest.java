@@ -0,0 +1,95 @@
+package hiperium.city.functions.tests.utils;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DynamoDbTestFixtureTest {
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final AtomicInteger describeCalls = new AtomicInteger();
+
+    @Test
+    void testCreateTable_NamespacedAndActive() {
+        DynamoDbTestFixture fixture = new DynamoDbTestFixture(this.stubClient());
+
+        // Act
+        String firstTable = fixture.createTable("Cities", "id");
+        String secondTable = fixture.createTable("Cities", "id");
+
+        // Assert
+        assertThat(firstTable).startsWith("Cities-").isNotEqualTo(secondTable);
+        assertThat(this.describeCalls.get()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void testLoadItems_BatchesOf25AndRetriesUnprocessed() {
+        DynamoDbTestFixture fixture = new DynamoDbTestFixture(this.stubClient());
+        List<Map<String, AttributeValue>> items = IntStream.range(0, 60)
+            .mapToObj(index -> Map.of("id", AttributeValue.fromS("city-" + index)))
+            .toList();
+
+        // Act
+        fixture.loadItems("Cities-test", items);
+
+        // Assert
+        assertThat(this.batchSizes).containsExactly(25, 1, 25, 1, 10, 1);
+    }
+
+    private DynamoDbClient stubClient() {
+        return new DynamoDbClient() {
+            @Override
+            public CreateTableResponse createTable(final CreateTableRequest request) {
+                return CreateTableResponse.builder().build();
+            }
+
+            @Override
+            public DescribeTableResponse describeTable(final DescribeTableRequest request) {
+                // The table becomes active on the second poll.
+                TableStatus status = describeCalls.incrementAndGet() % 2 == 0 ? TableStatus.ACTIVE : TableStatus.CREATING;
+                return DescribeTableResponse.builder()
+                    .table(TableDescription.builder().tableName(request.tableName()).tableStatus(status).build())
+                    .build();
+            }
+
+            @Override
+            public BatchWriteItemResponse batchWriteItem(final BatchWriteItemRequest request) {
+                Map.Entry<String, List<WriteRequest>> entry = request.requestItems().entrySet().iterator().next();
+                List<WriteRequest> writeRequests = entry.getValue();
+                batchSizes.add(writeRequests.size());
+                // The last item of every full request is reported as unprocessed once.
+                Map<String, List<WriteRequest>> unprocessed = writeRequests.size() > 1
+                    ? Map.of(entry.getKey(), writeRequests.subList(writeRequests.size() - 1, writeRequests.size()))
+                    : Map.of();
+                return BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+                // Nothing to release.
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package hiperium.city.functions.tests.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OpenLoopLoadGeneratorTest {
+
+    @Test
+    void testRun_SendsAtTargetRate() {
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(200, Duration.ofMillis(500));
+        AtomicInteger sequence = new AtomicInteger();
+
+        // Act
+        OpenLoopLoadGenerator.LoadResult result = generator.run(sequence::incrementAndGet, request -> {
+            if (request % 10 == 0) {
+                throw new IllegalStateException("Request failed: " + request);
+            }
+        });
+
+        // Assert
+        assertEquals(100, result.requests());
+        assertEquals(10, result.failures());
+        assertEquals(100, result.latencies().count());
+        assertThat(result.elapsed()).isGreaterThanOrEqualTo(Duration.ofMillis(495));
+    }
+
+    @Test
+    void testRun_LatencyIncludesScheduleDelay() {
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(100, Duration.ofMillis(100));
+        AtomicInteger sequence = new AtomicInteger();
+
+        // Act
+        OpenLoopLoadGenerator.LoadResult result = generator.run(sequence::incrementAndGet, request -> {
+            try {
+                Thread.sleep(20L);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Assert
+        assertEquals(10, result.requests());
+        assertEquals(0, result.failures());
+        assertThat(result.latencies().min()).isGreaterThanOrEqualTo(20_000L);
+    }
+
+    @Test
+    void testRun_CountsErrorsAsFailures() {
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(100, Duration.ofMillis(100));
+        AtomicInteger sequence = new AtomicInteger();
+
+        // Act
+        OpenLoopLoadGenerator.LoadResult result = generator.run(sequence::incrementAndGet, request -> {
+            if (request % 2 == 0) {
+                throw new AssertionError("Unexpected response: " + request);
+            }
+        });
+
+        // Assert
+        assertEquals(10, result.requests());
+        assertEquals(5, result.failures());
+    }
+
+    @Test
+    void testConstructor_RejectsRateAboveOnePerNanosecond() {
+        Duration duration = Duration.ofMillis(1);
+
+        assertThrows(IllegalArgumentException.class, () -> new OpenLoopLoadGenerator(1_000_000_001, duration));
+        assertThrows(IllegalArgumentException.class, () -> new OpenLoopLoadGenerator(0, duration));
+    }
+}
@@ -1,10 +1,12 @@
 package hiperium.city.functions.tests.utils;
 
+import hiperium.city.functions.common.requests.FunctionRequest;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.NoSuchFileException;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -79,4 +81,34 @@ public class ResourceStreamUtilTest {
         assertEquals(0, availableBytes);
         inputStream.close(); // Ensure resources are closed properly
     }
+
+    @Test
+    void testGetFunctionRequestFromFilePath_ParsedOnce() throws IOException {
+        String sampleJsonPath = "requests/valid-api-gw-v2-request.json";
+
+        // Act
+        FunctionRequest functionRequest = ResourceStreamUtil.getFunctionRequestFromFilePath(sampleJsonPath);
+
+        // Assert
+        assertThat(functionRequest.requestContext().requestId()).isEqualTo("id");
+        assertThat(functionRequest.body()).isEqualTo("Hello from Lambda");
+        assertThat(ResourceStreamUtil.getFunctionRequestFromFilePath(sampleJsonPath)).isSameAs(functionRequest);
+    }
+
+    @Test
+    void testGenerateFunctionRequests_VariedAndReproducible() throws IOException {
+        // Act
+        List<FunctionRequest> requests =
+            ResourceStreamUtil.generateFunctionRequests(ResourceStreamUtil.CITY_ID_REQUEST_TEMPLATE, 50, 42L);
+        List<String> sameSeedRequests =
+            ResourceStreamUtil.generateJsonRequests(ResourceStreamUtil.CITY_ID_REQUEST_TEMPLATE, 50, 42L);
+
+        // Assert
+        assertThat(requests).hasSize(50);
+        assertThat(requests).extracting(request -> request.requestContext().requestId()).doesNotHaveDuplicates();
+        assertThat(requests).extracting(FunctionRequest::body).doesNotHaveDuplicates()
+            .allMatch(body -> body.matches(
+                "\\{\"cityId\":\"[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}\"}"));
+        assertThat(sameSeedRequests.getFirst()).contains(requests.getFirst().requestContext().requestId());
+    }
 }
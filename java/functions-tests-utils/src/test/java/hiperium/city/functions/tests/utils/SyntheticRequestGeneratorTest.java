@@ -0,0 +1,73 @@
+package hiperium.city.functions.tests.utils;
+
+import hiperium.city.functions.common.requests.FunctionRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SyntheticRequestGeneratorTest {
+
+    private static final String TEMPLATE_PATH = "requests/valid-api-gw-v2-request.json";
+    private static final int REQUEST_COUNT = 10_000;
+
+    @Test
+    void testGet_FollowsRequestMix() throws IOException {
+        RequestMix mix = new RequestMix(0.1, 0.2, 0.05, 0.8, 5, 1_000);
+        SyntheticRequestGenerator generator = SyntheticRequestGenerator.fromTemplate(TEMPLATE_PATH, mix, 42L);
+
+        // Act
+        int emptyBodies = 0;
+        int invalidCityIds = 0;
+        int oversizedHeaders = 0;
+        Set<String> requestIds = new HashSet<>();
+        for (int index = 0; index < REQUEST_COUNT; index++) {
+            FunctionRequest request = generator.get();
+            requestIds.add(request.requestContext().requestId());
+            if (request.body().isEmpty()) {
+                emptyBodies++;
+            } else if (request.body().contains("invalid-city-")) {
+                invalidCityIds++;
+            }
+            if (request.headers().containsKey(SyntheticRequestGenerator.OVERSIZED_HEADER)) {
+                oversizedHeaders++;
+            }
+        }
+
+        // Assert
+        assertThat(emptyBodies).isBetween(1_800, 2_200);
+        assertThat(invalidCityIds).isBetween(650, 950);
+        assertThat(oversizedHeaders).isBetween(400, 600);
+        assertEquals(REQUEST_COUNT, requestIds.size());
+    }
+
+    @Test
+    void testGet_SameSeedSameRequests() throws IOException {
+        SyntheticRequestGenerator first = SyntheticRequestGenerator.fromTemplate(TEMPLATE_PATH, RequestMix.defaults(), 7L);
+        SyntheticRequestGenerator second = SyntheticRequestGenerator.fromTemplate(TEMPLATE_PATH, RequestMix.defaults(), 7L);
+
+        // Act
+        List<String> firstBodies = new ArrayList<>();
+        List<String> secondBodies = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            firstBodies.add(first.get().body());
+            secondBodies.add(second.get().body());
+        }
+
+        // Assert
+        assertEquals(firstBodies, secondBodies);
+    }
+
+    @Test
+    void testRequestMix_InvalidRatio() {
+        // Assert
+        assertThrows(IllegalArgumentException.class, () -> new RequestMix(1.5, 0, 0, 0, 1, 1));
+    }
+}